@@ -1,30 +1,46 @@
 package org.iqkv.boutique.aop.logging;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.iqkv.boutique.config.ApplicationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import tech.jhipster.config.JHipsterConstants;
 
 /**
  * Aspect for logging execution of service and repository Spring components.
  *
- * By default, it only runs with the "dev" profile.
+ * By default, it only runs with the "dev" profile. With {@code application.method-logging.sampled}, it only logs a
+ * sample of the calls at the INFO level, with their duration up to the completion of the returned {@link Mono} or
+ * {@link Flux}, so that it can run in production.
  */
 @Aspect
 public class LoggingAspect {
 
     private final Environment env;
 
-    public LoggingAspect(Environment env) {
+    private final ApplicationProperties.MethodLogging methodLoggingProperties;
+
+    private final Map<String, Double> sampleRates = new ConcurrentHashMap<>();
+
+    public LoggingAspect(Environment env, ApplicationProperties applicationProperties) {
         this.env = env;
+        this.methodLoggingProperties = applicationProperties.getMethodLogging();
     }
 
     /**
@@ -94,6 +110,9 @@ public class LoggingAspect {
     @Around("applicationPackagePointcut() && springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
         Logger log = logger(joinPoint);
+        if (methodLoggingProperties.isSampled()) {
+            return isSampled(joinPoint) && log.isInfoEnabled() ? logSampled(joinPoint, log) : joinPoint.proceed();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
         }
@@ -108,4 +127,93 @@ public class LoggingAspect {
             throw e;
         }
     }
+
+    private boolean isSampled(JoinPoint joinPoint) {
+        double sampleRate = sampleRates.computeIfAbsent(joinPoint.getSignature().getDeclaringTypeName(), this::sampleRate);
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private double sampleRate(String declaringTypeName) {
+        if (declaringTypeName.startsWith("org.iqkv.boutique.repository.")) {
+            return methodLoggingProperties.getRepositorySampleRate();
+        }
+        if (declaringTypeName.startsWith("org.iqkv.boutique.service.")) {
+            return methodLoggingProperties.getServiceSampleRate();
+        }
+        return methodLoggingProperties.getWebSampleRate();
+    }
+
+    /**
+     * Logs a call with its duration. The duration of a reactive call runs from the subscription to the completion of its
+     * publisher, and the arguments and result are only rendered when the log is written, up to
+     * {@code application.method-logging.max-length} characters.
+     */
+    private Object logSampled(ProceedingJoinPoint joinPoint, Logger log) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Rendered arguments = new Rendered(joinPoint.getArgs(), methodLoggingProperties.getMaxLength());
+        long start = System.nanoTime();
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono
+                    .doOnSuccess(value -> logCompletion(log, method, subscribed, SignalType.ON_COMPLETE, arguments, value))
+                    .doOnError(e -> logCompletion(log, method, subscribed, SignalType.ON_ERROR, arguments, null))
+                    .doOnCancel(() -> logCompletion(log, method, subscribed, SignalType.CANCEL, arguments, null));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                AtomicLong count = new AtomicLong();
+                return flux
+                    .doOnNext(element -> count.incrementAndGet())
+                    .doOnComplete(() -> logCompletion(log, method, subscribed, SignalType.ON_COMPLETE, arguments, elements(count)))
+                    .doOnError(e -> logCompletion(log, method, subscribed, SignalType.ON_ERROR, arguments, elements(count)))
+                    .doOnCancel(() -> logCompletion(log, method, subscribed, SignalType.CANCEL, arguments, elements(count)));
+            });
+        }
+        log.info(
+            "Sampled: {}() in {} ms with argument[s] = {} and result = {}",
+            method,
+            elapsedMillis(start),
+            arguments,
+            new Rendered(result, methodLoggingProperties.getMaxLength())
+        );
+        return result;
+    }
+
+    /**
+     * Logs the end of a reactive call, when its publisher terminates rather than when the downstream operators are done.
+     */
+    private void logCompletion(Logger log, String method, long subscribed, SignalType signal, Rendered arguments, Object result) {
+        log.info(
+            "Sampled: {}() in {} ms ({}) with argument[s] = {} and result = {}",
+            method,
+            elapsedMillis(subscribed),
+            signal,
+            arguments,
+            new Rendered(result, methodLoggingProperties.getMaxLength())
+        );
+    }
+
+    private static String elements(AtomicLong count) {
+        return count.get() + " element[s]";
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * A value rendered lazily, when a log is actually written, and truncated.
+     */
+    private record Rendered(Object value, int maxLength) {
+
+        @Override
+        public String toString() {
+            String rendered = value instanceof Object[] values ? Arrays.deepToString(values) : String.valueOf(value);
+            return rendered.length() <= maxLength ? rendered : rendered.substring(0, maxLength) + "...";
+        }
+    }
 }
@@ -0,0 +1,139 @@
+package org.iqkv.boutique.aop.observation;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Observes reactive calls from their subscription to their completion, instead of the time to assemble them.
+ * <p>
+ * Each subscription is an {@link Observation}, child of the observation in the Reactor context if any, and the number
+ * of elements emitted is recorded in a {@code <name>.rows} distribution summary.
+ */
+public class ReactiveObserver {
+
+    /**
+     * Name of the observations of the queries of the repositories.
+     */
+    public static final String REPOSITORY_QUERY = "repository.query";
+
+    private final ObservationRegistry observationRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveObserver(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Observe the queries of a repository.
+     *
+     * @param spec the query, mapped to entities.
+     * @param entity the name of the entity.
+     * @param <T> the type of the entity.
+     * @return the query, observed on each fetch.
+     */
+    public <T> RowsFetchSpec<T> observe(RowsFetchSpec<T> spec, String entity) {
+        return new RowsFetchSpec<>() {
+            @Override
+            public Mono<T> one() {
+                return observe(spec.one(), REPOSITORY_QUERY, KeyValues.of("entity", entity, "operation", "one"));
+            }
+
+            @Override
+            public Mono<T> first() {
+                return observe(spec.first(), REPOSITORY_QUERY, KeyValues.of("entity", entity, "operation", "first"));
+            }
+
+            @Override
+            public Flux<T> all() {
+                return observe(spec.all(), REPOSITORY_QUERY, KeyValues.of("entity", entity, "operation", "all"));
+            }
+        };
+    }
+
+    /**
+     * Observe a {@link Mono} on each subscription.
+     *
+     * @param mono the publisher.
+     * @param name the name of the observation.
+     * @param keyValues the low cardinality key values of the observation.
+     * @param <T> the type of the element.
+     * @return the observed publisher.
+     */
+    public <T> Mono<T> observe(Mono<T> mono, String name, KeyValues keyValues) {
+        return Mono.deferContextual(context -> {
+            Observation observation = start(name, keyValues, context);
+            AtomicLong rows = new AtomicLong();
+            AtomicBoolean stopped = new AtomicBoolean();
+            return mono
+                .doOnSuccess(value -> {
+                    if (value != null) {
+                        rows.incrementAndGet();
+                    }
+                    stop(observation, name, keyValues, rows, stopped);
+                })
+                .doOnError(e -> stop(observation.error(e), name, keyValues, rows, stopped))
+                .doOnCancel(() -> stop(observation, name, keyValues, rows, stopped))
+                .contextWrite(c -> c.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    /**
+     * Observe a {@link Flux} on each subscription.
+     *
+     * @param flux the publisher.
+     * @param name the name of the observation.
+     * @param keyValues the low cardinality key values of the observation.
+     * @param <T> the type of the elements.
+     * @return the observed publisher.
+     */
+    public <T> Flux<T> observe(Flux<T> flux, String name, KeyValues keyValues) {
+        return Flux.deferContextual(context -> {
+            Observation observation = start(name, keyValues, context);
+            AtomicLong rows = new AtomicLong();
+            AtomicBoolean stopped = new AtomicBoolean();
+            return flux
+                .doOnNext(element -> rows.incrementAndGet())
+                .doOnComplete(() -> stop(observation, name, keyValues, rows, stopped))
+                .doOnError(e -> stop(observation.error(e), name, keyValues, rows, stopped))
+                .doOnCancel(() -> stop(observation, name, keyValues, rows, stopped))
+                .contextWrite(c -> c.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private Observation start(String name, KeyValues keyValues, ContextView context) {
+        return Observation.createNotStarted(name, observationRegistry)
+            .lowCardinalityKeyValues(keyValues)
+            .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+            .start();
+    }
+
+    private void stop(Observation observation, String name, KeyValues keyValues, AtomicLong rows, AtomicBoolean stopped) {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        observation.highCardinalityKeyValue("rows", String.valueOf(rows.get())).stop();
+        Tags tags = Tags.empty();
+        for (KeyValue keyValue : keyValues) {
+            tags = tags.and(keyValue.getKey(), keyValue.getValue());
+        }
+        DistributionSummary.builder(name + ".rows")
+            .description("Number of elements emitted")
+            .tags(tags)
+            .register(meterRegistry)
+            .record(rows.get());
+    }
+}
@@ -0,0 +1,77 @@
+package org.iqkv.boutique.aop.observation;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Aspect observing the public methods of the services, up to the completion of the {@link Mono} or {@link Flux} they
+ * return.
+ */
+@Aspect
+public class ServiceObservationAspect {
+
+    /**
+     * Name of the observations of the service methods.
+     */
+    public static final String SERVICE_METHOD = "service.method";
+
+    private final ReactiveObserver reactiveObserver;
+
+    private final ObservationRegistry observationRegistry;
+
+    public ServiceObservationAspect(ReactiveObserver reactiveObserver, ObservationRegistry observationRegistry) {
+        this.reactiveObserver = reactiveObserver;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Pointcut that matches the public methods of the services.
+     */
+    @Pointcut("within(@org.springframework.stereotype.Service *) && within(org.iqkv.boutique.service..*) && execution(public * *(..))")
+    public void serviceMethodPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that observes a service method.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception thrown by the method.
+     */
+    @Around("serviceMethodPointcut()")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        KeyValues keyValues = KeyValues.of(
+            "class",
+            joinPoint.getSignature().getDeclaringType().getSimpleName(),
+            "method",
+            joinPoint.getSignature().getName()
+        );
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        if (Mono.class.isAssignableFrom(returnType)) {
+            return reactiveObserver.observe((Mono<?>) joinPoint.proceed(), SERVICE_METHOD, keyValues);
+        }
+        if (Flux.class.isAssignableFrom(returnType)) {
+            return reactiveObserver.observe((Flux<?>) joinPoint.proceed(), SERVICE_METHOD, keyValues);
+        }
+        Observation observation = Observation.createNotStarted(SERVICE_METHOD, observationRegistry)
+            .lowCardinalityKeyValues(keyValues)
+            .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Observation of the reactive calls.
+ */
+package org.iqkv.boutique.aop.observation;
@@ -0,0 +1,126 @@
+package org.iqkv.boutique.aop.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Optional;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Aspect marking the read-only transactions of the services in the Reactor context, so that their connections can be
+ * taken from a replica.
+ * <p>
+ * A user who has just written is not routed to the replica for {@code application.database.replica.stickiness}, so
+ * that they read their own writes even if the replica has not replayed them yet. The time of the writes is recorded in
+ * the {@link WriteMarker} of the request, which the client carries to the next nodes it reaches, and on the node itself
+ * for the clients which do not keep the marker. The aspect runs before the transaction interceptor, for the mark to be
+ * visible when the transaction acquires its connection.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TransactionRoutingAspect {
+
+    /**
+     * Key of the Reactor context marking a read-only transaction.
+     */
+    public static final String READ_ONLY = TransactionRoutingAspect.class.getName() + ".READ_ONLY";
+
+    private final TransactionAttributeSource transactionAttributeSource = new AnnotationTransactionAttributeSource();
+
+    private final long stickinessMillis;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public TransactionRoutingAspect(Duration stickiness) {
+        this.stickinessMillis = stickiness.toMillis();
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(stickiness).maximumSize(100_000).build();
+    }
+
+    /**
+     * Returns whether the current transaction can read from a replica.
+     *
+     * @param context the Reactor context of the transaction.
+     * @return {@code true} if the transaction is read-only.
+     */
+    public static boolean isReadOnly(ContextView context) {
+        return context.getOrDefault(READ_ONLY, false);
+    }
+
+    /**
+     * Pointcut that matches the public methods of the services.
+     */
+    @Pointcut("within(@org.springframework.stereotype.Service *) && within(org.iqkv.boutique.service..*) && execution(public * *(..))")
+    public void serviceMethodPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that marks the read-only transactions, and records the users running the other ones.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception thrown by the method.
+     */
+    @Around("serviceMethodPointcut()")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Class<?> returnType = signature.getReturnType();
+        boolean mono = Mono.class.isAssignableFrom(returnType);
+        if (!mono && !Flux.class.isAssignableFrom(returnType)) {
+            return joinPoint.proceed();
+        }
+        Class<?> targetClass = joinPoint.getTarget() != null ? joinPoint.getTarget().getClass() : signature.getDeclaringType();
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(signature.getMethod(), targetClass);
+        if (attribute == null) {
+            return joinPoint.proceed();
+        }
+        Object result = joinPoint.proceed();
+        Mono<Optional<String>> login = ReactiveSecurityContextHolder.getContext()
+            .mapNotNull(SecurityContext::getAuthentication)
+            .map(Authentication::getName)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty());
+        if (attribute.isReadOnly()) {
+            Mono<Boolean> readOnly = Mono.deferContextual(context ->
+                login.map(user -> user.map(recentWriters::getIfPresent).isEmpty() && !hasRecentlyWritten(context))
+            );
+            if (mono) {
+                return readOnly.flatMap(replica -> ((Mono<?>) result).contextWrite(context -> context.put(READ_ONLY, replica)));
+            }
+            return readOnly.flatMapMany(replica -> ((Flux<?>) result).contextWrite(context -> context.put(READ_ONLY, replica)));
+        }
+        if (mono) {
+            return Mono.deferContextual(context ->
+                login.flatMap(user -> ((Mono<?>) result).doOnTerminate(() -> recordWrite(user, context)))
+            );
+        }
+        return Flux.deferContextual(context ->
+            login.flatMapMany(user -> ((Flux<?>) result).doOnTerminate(() -> recordWrite(user, context)))
+        );
+    }
+
+    private boolean hasRecentlyWritten(ContextView context) {
+        long wroteAt = context.<WriteMarker>getOrEmpty(WriteMarker.class).map(WriteMarker::getWroteAt).orElse(0L);
+        return wroteAt > 0 && System.currentTimeMillis() - wroteAt < stickinessMillis;
+    }
+
+    private void recordWrite(Optional<String> login, ContextView context) {
+        login.ifPresent(user -> recentWriters.put(user, Boolean.TRUE));
+        context.<WriteMarker>getOrEmpty(WriteMarker.class).ifPresent(marker -> marker.recordWrite(System.currentTimeMillis()));
+    }
+}
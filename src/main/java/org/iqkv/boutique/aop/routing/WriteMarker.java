@@ -0,0 +1,50 @@
+package org.iqkv.boutique.aop.routing;
+
+/**
+ * Time of the last write of a client, carried from node to node by the client itself, and put in the Reactor context of
+ * its requests under this class.
+ * <p>
+ * The time is read from the wall clock of the nodes, which are expected to be synchronized well below the
+ * stickiness.
+ */
+public final class WriteMarker {
+
+    private final long requestWroteAt;
+
+    private volatile long wroteAt;
+
+    /**
+     * @param wroteAt the time of the last write sent by the client, in milliseconds since the epoch, or {@code 0}.
+     */
+    public WriteMarker(long wroteAt) {
+        this.requestWroteAt = wroteAt;
+        this.wroteAt = wroteAt;
+    }
+
+    /**
+     * Returns the time of the last write of the client, in milliseconds since the epoch, or {@code 0} if unknown.
+     *
+     * @return the time of the last write.
+     */
+    public long getWroteAt() {
+        return wroteAt;
+    }
+
+    /**
+     * Returns whether the current request has written, and the client must be sent the new time.
+     *
+     * @return {@code true} if a write was recorded during the request.
+     */
+    public boolean isUpdated() {
+        return wroteAt != requestWroteAt;
+    }
+
+    /**
+     * Records a write of the current request.
+     *
+     * @param now the time of the write, in milliseconds since the epoch.
+     */
+    public void recordWrite(long now) {
+        wroteAt = now;
+    }
+}
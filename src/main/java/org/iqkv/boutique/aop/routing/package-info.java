@@ -0,0 +1,4 @@
+/**
+ * Routing of the read-only transactions.
+ */
+package org.iqkv.boutique.aop.routing;
@@ -1,5 +1,8 @@
 package org.iqkv.boutique.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,9 +13,950 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Inventory inventory = new Inventory();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final UserInfo userInfo = new UserInfo();
+
+    private final JwkSet jwkSet = new JwkSet();
+
+    private final VerifiedTokens verifiedTokens = new VerifiedTokens();
+
+    private final TokenRefresh tokenRefresh = new TokenRefresh();
+
+    private final Compression compression = new Compression();
+
+    private final AsyncLogging asyncLogging = new AsyncLogging();
+
+    private final MethodLogging methodLogging = new MethodLogging();
+
+    private final SqlStats sqlStats = new SqlStats();
+
+    private final Database database = new Database();
+
     // jhipster-needle-application-properties-property
 
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public UserInfo getUserInfo() {
+        return userInfo;
+    }
+
+    public JwkSet getJwkSet() {
+        return jwkSet;
+    }
+
+    public VerifiedTokens getVerifiedTokens() {
+        return verifiedTokens;
+    }
+
+    public TokenRefresh getTokenRefresh() {
+        return tokenRefresh;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public AsyncLogging getAsyncLogging() {
+        return asyncLogging;
+    }
+
+    public MethodLogging getMethodLogging() {
+        return methodLogging;
+    }
+
+    public SqlStats getSqlStats() {
+        return sqlStats;
+    }
+
+    public Database getDatabase() {
+        return database;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
+    public static class Inventory {
+
+        /**
+         * How long reserved items are held before the sweeper gives them back to the stock.
+         */
+        private Duration reservationTimeToLive = Duration.ofMinutes(15);
+
+        /**
+         * Number of stripes the stock of a hot product is spread over by default.
+         */
+        private int stripes = 8;
+
+        /**
+         * Delay between two runs of the expired reservations sweeper.
+         */
+        private Duration sweepInterval = Duration.ofSeconds(30);
+
+        /**
+         * Maximum number of expired reservations released per sweeper transaction.
+         */
+        private int sweepBatchSize = 500;
+
+        public Duration getReservationTimeToLive() {
+            return reservationTimeToLive;
+        }
+
+        public void setReservationTimeToLive(Duration reservationTimeToLive) {
+            this.reservationTimeToLive = reservationTimeToLive;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        public int getSweepBatchSize() {
+            return sweepBatchSize;
+        }
+
+        public void setSweepBatchSize(int sweepBatchSize) {
+            this.sweepBatchSize = sweepBatchSize;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * How long the response recorded for an {@code Idempotency-Key} is replayed to retries.
+         */
+        private Duration timeToLive = Duration.ofHours(1);
+
+        /**
+         * How long a node may hold a key while it processes the first request, before another node can take it over.
+         */
+        private Duration lockTimeout = Duration.ofMinutes(1);
+
+        /**
+         * How long a retry waits for the first request, processed on another node, to complete.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of responses kept in memory on each node.
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * Delay between two purges of the expired keys from the database.
+         */
+        private Duration sweepInterval = Duration.ofMinutes(5);
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getLockTimeout() {
+            return lockTimeout;
+        }
+
+        public void setLockTimeout(Duration lockTimeout) {
+            this.lockTimeout = lockTimeout;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+    }
+
+    public static class UserInfo {
+
+        /**
+         * How long the claims fetched from the IdP userinfo endpoint are cached.
+         */
+        private Duration timeToLive = Duration.ofHours(1);
+
+        /**
+         * How long before expiry the claims of an active user are fetched again, in the background.
+         */
+        private Duration refreshAhead = Duration.ofMinutes(5);
+
+        /**
+         * Maximum number of users kept in memory on each node.
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * Whether the claims are also kept in the database, so that a new node does not fetch them all again.
+         */
+        private boolean persistent = false;
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getRefreshAhead() {
+            return refreshAhead;
+        }
+
+        public void setRefreshAhead(Duration refreshAhead) {
+            this.refreshAhead = refreshAhead;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public boolean isPersistent() {
+            return persistent;
+        }
+
+        public void setPersistent(boolean persistent) {
+            this.persistent = persistent;
+        }
+    }
+
+    public static class JwkSet {
+
+        /**
+         * Delay between two background fetches of the IdP signing keys.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * Minimum delay between two fetches triggered by tokens signed with an unknown key.
+         */
+        private Duration minRefreshInterval = Duration.ofSeconds(30);
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Duration getMinRefreshInterval() {
+            return minRefreshInterval;
+        }
+
+        public void setMinRefreshInterval(Duration minRefreshInterval) {
+            this.minRefreshInterval = minRefreshInterval;
+        }
+    }
+
+    public static class VerifiedTokens {
+
+        /**
+         * Maximum number of verified bearer tokens kept in memory on each node.
+         */
+        private long maxEntries = 10_000;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class TokenRefresh {
+
+        /**
+         * How long before its expiry the access token of a session is refreshed.
+         */
+        private Duration skew = Duration.ofMinutes(1);
+
+        public Duration getSkew() {
+            return skew;
+        }
+
+        public void setSkew(Duration skew) {
+            this.skew = skew;
+        }
+    }
+
+    public static class Compression {
+
+        /**
+         * Whether responses are compressed by the application, with a policy per route, instead of {@code server.compression}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Content types which are compressed.
+         */
+        private List<String> mimeTypes = new ArrayList<>(
+            List.of("text/html", "text/xml", "text/plain", "text/css", "application/javascript", "application/json", "image/svg+xml")
+        );
+
+        /**
+         * The policy of the routes which do not match any of {@code routes}.
+         */
+        private final Policy defaults = new Policy();
+
+        /**
+         * The policies of specific routes, the first one matching a request applies. Unset fields are taken from
+         * {@code defaults}.
+         */
+        private List<Route> routes = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getMimeTypes() {
+            return mimeTypes;
+        }
+
+        public void setMimeTypes(List<String> mimeTypes) {
+            this.mimeTypes = mimeTypes;
+        }
+
+        public Policy getDefaults() {
+            return defaults;
+        }
+
+        public List<Route> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(List<Route> routes) {
+            this.routes = routes;
+        }
+
+        public static class Policy {
+
+            /**
+             * Whether responses are compressed. Streamed responses, such as NDJSON or server-sent events, never are.
+             */
+            private Boolean enabled = true;
+
+            /**
+             * The compression algorithm, {@code gzip} or {@code deflate}.
+             */
+            private String algorithm = "gzip";
+
+            /**
+             * The compression level, from 1 (fastest) to 9 (smallest).
+             */
+            private Integer level = 6;
+
+            /**
+             * Minimum size of a response body to compress it, in bytes.
+             */
+            private Integer minSize = 1024;
+
+            public Boolean getEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(Boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getAlgorithm() {
+                return algorithm;
+            }
+
+            public void setAlgorithm(String algorithm) {
+                this.algorithm = algorithm;
+            }
+
+            public Integer getLevel() {
+                return level;
+            }
+
+            public void setLevel(Integer level) {
+                this.level = level;
+            }
+
+            public Integer getMinSize() {
+                return minSize;
+            }
+
+            public void setMinSize(Integer minSize) {
+                this.minSize = minSize;
+            }
+        }
+
+        public static class Route extends Policy {
+
+            /**
+             * The path pattern of the route, such as {@code /api/products/**}.
+             */
+            private String pattern;
+
+            public Route() {
+                setEnabled(null);
+                setAlgorithm(null);
+                setLevel(null);
+                setMinSize(null);
+            }
+
+            public String getPattern() {
+                return pattern;
+            }
+
+            public void setPattern(String pattern) {
+                this.pattern = pattern;
+            }
+        }
+    }
+
+    public static class AsyncLogging {
+
+        /**
+         * Whether the console appender is written to from a dedicated thread, instead of the threads logging.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of events waiting to be written, rounded up to a power of two.
+         */
+        private int queueSize = 8192;
+
+        /**
+         * Maximum number of events written between two flushes.
+         */
+        private int batchSize = 256;
+
+        /**
+         * Number of free slots in the queue under which the events at or below {@code discard-level} are dropped.
+         */
+        private int discardingThreshold = 1024;
+
+        /**
+         * Highest level of the events dropped when the queue is almost full.
+         */
+        private String discardLevel = "INFO";
+
+        /**
+         * Maximum time to write the queued events on shutdown.
+         */
+        private Duration maxFlushTime = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getDiscardingThreshold() {
+            return discardingThreshold;
+        }
+
+        public void setDiscardingThreshold(int discardingThreshold) {
+            this.discardingThreshold = discardingThreshold;
+        }
+
+        public String getDiscardLevel() {
+            return discardLevel;
+        }
+
+        public void setDiscardLevel(String discardLevel) {
+            this.discardLevel = discardLevel;
+        }
+
+        public Duration getMaxFlushTime() {
+            return maxFlushTime;
+        }
+
+        public void setMaxFlushTime(Duration maxFlushTime) {
+            this.maxFlushTime = maxFlushTime;
+        }
+    }
+
+    public static class MethodLogging {
+
+        /**
+         * Whether the logging aspect only logs a sample of the calls, with their duration, so that it can run in production.
+         */
+        private boolean sampled = false;
+
+        /**
+         * Share of the repository calls logged, from 0 to 1.
+         */
+        private double repositorySampleRate = 0.01;
+
+        /**
+         * Share of the service calls logged, from 0 to 1.
+         */
+        private double serviceSampleRate = 0.01;
+
+        /**
+         * Share of the REST calls logged, from 0 to 1.
+         */
+        private double webSampleRate = 0.05;
+
+        /**
+         * Maximum length of the arguments and of the result logged.
+         */
+        private int maxLength = 512;
+
+        public boolean isSampled() {
+            return sampled;
+        }
+
+        public void setSampled(boolean sampled) {
+            this.sampled = sampled;
+        }
+
+        public double getRepositorySampleRate() {
+            return repositorySampleRate;
+        }
+
+        public void setRepositorySampleRate(double repositorySampleRate) {
+            this.repositorySampleRate = repositorySampleRate;
+        }
+
+        public double getServiceSampleRate() {
+            return serviceSampleRate;
+        }
+
+        public void setServiceSampleRate(double serviceSampleRate) {
+            this.serviceSampleRate = serviceSampleRate;
+        }
+
+        public double getWebSampleRate() {
+            return webSampleRate;
+        }
+
+        public void setWebSampleRate(double webSampleRate) {
+            this.webSampleRate = webSampleRate;
+        }
+
+        public int getMaxLength() {
+            return maxLength;
+        }
+
+        public void setMaxLength(int maxLength) {
+            this.maxLength = maxLength;
+        }
+    }
+
+    public static class SqlStats {
+
+        /**
+         * Duration over which a statement is logged as slow.
+         */
+        private Duration slowThreshold = Duration.ofMillis(500);
+
+        /**
+         * Maximum number of statement templates tracked.
+         */
+        private int maxStatements = 500;
+
+        public Duration getSlowThreshold() {
+            return slowThreshold;
+        }
+
+        public void setSlowThreshold(Duration slowThreshold) {
+            this.slowThreshold = slowThreshold;
+        }
+
+        public int getMaxStatements() {
+            return maxStatements;
+        }
+
+        public void setMaxStatements(int maxStatements) {
+            this.maxStatements = maxStatements;
+        }
+    }
+
+    public static class Database {
+
+        /**
+         * Whether the relationships of the pages of entities are loaded with one query per related table, instead of
+         * being joined to each row.
+         */
+        private boolean batchLoading = false;
+
+        /**
+         * Duration during which the relationship lookups by parent id are collected into one query, when batch loading
+         * is enabled. Zero collects them until the next tick of the scheduler.
+         */
+        private Duration batchWindow = Duration.ofMillis(2);
+
+        /**
+         * Maximum number of parent ids looked up by one query.
+         */
+        private int maxBatchSize = 500;
+
+        private final Pool pool = new Pool();
+
+        private final Replica replica = new Replica();
+
+        private final Partitioning partitioning = new Partitioning();
+
+        public boolean isBatchLoading() {
+            return batchLoading;
+        }
+
+        public void setBatchLoading(boolean batchLoading) {
+            this.batchLoading = batchLoading;
+        }
+
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Pool getPool() {
+            return pool;
+        }
+
+        public Replica getReplica() {
+            return replica;
+        }
+
+        public Partitioning getPartitioning() {
+            return partitioning;
+        }
+
+        public static class Pool {
+
+            /**
+             * Number of connections opened on startup.
+             */
+            private int initialSize = 10;
+
+            /**
+             * Maximum number of connections.
+             */
+            private int maxSize = 20;
+
+            /**
+             * Maximum duration to wait for a connection, after which the acquisition fails.
+             */
+            private Duration maxAcquireTime = Duration.ofSeconds(5);
+
+            /**
+             * Maximum duration to open a new connection.
+             */
+            private Duration maxCreateConnectionTime = Duration.ofSeconds(5);
+
+            /**
+             * Duration after which an idle connection is closed.
+             */
+            private Duration maxIdleTime = Duration.ofMinutes(10);
+
+            /**
+             * Duration after which a connection is closed once released, whether idle or not.
+             */
+            private Duration maxLifeTime = Duration.ofMinutes(30);
+
+            /**
+             * Interval at which the idle and expired connections are closed in the background, instead of on acquisition.
+             */
+            private Duration backgroundEvictionInterval = Duration.ofSeconds(30);
+
+            /**
+             * Query run to validate a connection on acquisition, or none to only check its local state.
+             */
+            private String validationQuery;
+
+            public int getInitialSize() {
+                return initialSize;
+            }
+
+            public void setInitialSize(int initialSize) {
+                this.initialSize = initialSize;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getMaxAcquireTime() {
+                return maxAcquireTime;
+            }
+
+            public void setMaxAcquireTime(Duration maxAcquireTime) {
+                this.maxAcquireTime = maxAcquireTime;
+            }
+
+            public Duration getMaxCreateConnectionTime() {
+                return maxCreateConnectionTime;
+            }
+
+            public void setMaxCreateConnectionTime(Duration maxCreateConnectionTime) {
+                this.maxCreateConnectionTime = maxCreateConnectionTime;
+            }
+
+            public Duration getMaxIdleTime() {
+                return maxIdleTime;
+            }
+
+            public void setMaxIdleTime(Duration maxIdleTime) {
+                this.maxIdleTime = maxIdleTime;
+            }
+
+            public Duration getMaxLifeTime() {
+                return maxLifeTime;
+            }
+
+            public void setMaxLifeTime(Duration maxLifeTime) {
+                this.maxLifeTime = maxLifeTime;
+            }
+
+            public Duration getBackgroundEvictionInterval() {
+                return backgroundEvictionInterval;
+            }
+
+            public void setBackgroundEvictionInterval(Duration backgroundEvictionInterval) {
+                this.backgroundEvictionInterval = backgroundEvictionInterval;
+            }
+
+            public String getValidationQuery() {
+                return validationQuery;
+            }
+
+            public void setValidationQuery(String validationQuery) {
+                this.validationQuery = validationQuery;
+            }
+        }
+
+        public static class Replica {
+
+            /**
+             * Whether the read-only transactions are routed to the replica.
+             */
+            private boolean enabled = false;
+
+            /**
+             * R2DBC URL of the replica.
+             */
+            private String url;
+
+            /**
+             * Login username of the replica.
+             */
+            private String username;
+
+            /**
+             * Login password of the replica.
+             */
+            private String password;
+
+            /**
+             * Replication lag over which the reads are routed to the primary.
+             */
+            private Duration maxLag = Duration.ofSeconds(5);
+
+            /**
+             * Interval at which the replication lag is checked.
+             */
+            private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+            /**
+             * Duration after a write during which the reads of the same user or client are routed to the primary, on any node.
+             */
+            private Duration stickiness = Duration.ofSeconds(10);
+
+            private final Pool pool = new Pool();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+
+            public Duration getMaxLag() {
+                return maxLag;
+            }
+
+            public void setMaxLag(Duration maxLag) {
+                this.maxLag = maxLag;
+            }
+
+            public Duration getLagCheckInterval() {
+                return lagCheckInterval;
+            }
+
+            public void setLagCheckInterval(Duration lagCheckInterval) {
+                this.lagCheckInterval = lagCheckInterval;
+            }
+
+            public Duration getStickiness() {
+                return stickiness;
+            }
+
+            public void setStickiness(Duration stickiness) {
+                this.stickiness = stickiness;
+            }
+
+            public Pool getPool() {
+                return pool;
+            }
+        }
+
+        public static class Partitioning {
+
+            /**
+             * Number of monthly partitions kept created ahead of the current month.
+             */
+            private int premadeMonths = 3;
+
+            /**
+             * Number of past monthly partitions kept attached, the older ones being moved to the archive schema. Zero
+             * keeps them all attached.
+             */
+            private int retentionMonths = 0;
+
+            /**
+             * Schema to which the detached partitions are moved.
+             */
+            private String archiveSchema = "archive";
+
+            /**
+             * Delay between two runs of the partition maintenance.
+             */
+            private Duration maintenanceInterval = Duration.ofHours(6);
+
+            public int getPremadeMonths() {
+                return premadeMonths;
+            }
+
+            public void setPremadeMonths(int premadeMonths) {
+                this.premadeMonths = premadeMonths;
+            }
+
+            public int getRetentionMonths() {
+                return retentionMonths;
+            }
+
+            public void setRetentionMonths(int retentionMonths) {
+                this.retentionMonths = retentionMonths;
+            }
+
+            public String getArchiveSchema() {
+                return archiveSchema;
+            }
+
+            public void setArchiveSchema(String archiveSchema) {
+                this.archiveSchema = archiveSchema;
+            }
+
+            public Duration getMaintenanceInterval() {
+                return maintenanceInterval;
+            }
+
+            public void setMaintenanceInterval(Duration maintenanceInterval) {
+                this.maintenanceInterval = maintenanceInterval;
+            }
+        }
+    }
+
     // jhipster-needle-application-properties-property-class
 }
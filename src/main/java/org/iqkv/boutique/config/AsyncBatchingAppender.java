@@ -0,0 +1,328 @@
+package org.iqkv.boutique.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log appender handing the events to its appenders on a dedicated thread, so that the threads logging, such as the
+ * Netty event loops, never wait on the console or any other I/O.
+ * <p>
+ * Events are queued in a lock-free ring buffer, and written in batches: the output streams of the appenders which do
+ * not flush on each event are flushed once per batch. When the queue has less than {@code discardingThreshold} free
+ * slots, the events at or below {@code discardLevel} are dropped; when it is full, all the events are dropped. Logging
+ * never blocks, and the drops are counted per level.
+ */
+public class AsyncBatchingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements AppenderAttachable<ILoggingEvent> {
+
+    private static final Level[] LEVELS = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private final LongAdder[] discarded = new LongAdder[LEVELS.length];
+
+    private int queueSize = 8192;
+
+    private int batchSize = 256;
+
+    private int discardingThreshold = 1024;
+
+    private Level discardLevel = Level.INFO;
+
+    private int maxFlushTime = 1000;
+
+    private RingBuffer<ILoggingEvent> queue;
+
+    private Thread worker;
+
+    private volatile boolean parked;
+
+    public AsyncBatchingAppender() {
+        for (int i = 0; i < discarded.length; i++) {
+            discarded[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender attached to [" + name + "]");
+            return;
+        }
+        queue = new RingBuffer<>(queueSize);
+        if (discardingThreshold >= queue.capacity()) {
+            // Otherwise the verbose events would never be queued
+            discardingThreshold = queue.capacity() / 5;
+            addWarn("Discarding threshold of [" + name + "] reduced to " + discardingThreshold);
+        }
+        worker = new Thread(this::drain, "logging-" + name);
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        // The worker writes the events still queued before exiting
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Max flush time of " + maxFlushTime + " ms exceeded, " + queue.size() + " queued events were lost");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (event.getLevel().toInt() <= discardLevel.toInt() && queue.capacity() - queue.size() < discardingThreshold) {
+            discard(event);
+            return;
+        }
+        // Capture the thread name and MDC before leaving the logging thread
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            discard(event);
+            return;
+        }
+        if (parked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void discard(ILoggingEvent event) {
+        discarded[levelIndex(event.getLevel())].increment();
+    }
+
+    private void drain() {
+        List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        while (isStarted() || queue.size() > 0) {
+            ILoggingEvent event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                parked = true;
+                if (isStarted() && queue.size() == 0) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                parked = false;
+                continue;
+            }
+            for (ILoggingEvent queued : batch) {
+                appenders.appendLoopOnAppenders(queued);
+            }
+            batch.clear();
+            flush();
+        }
+    }
+
+    private void flush() {
+        for (Iterator<Appender<ILoggingEvent>> it = appenders.iteratorForAppenders(); it.hasNext();) {
+            if (it.next() instanceof OutputStreamAppender<ILoggingEvent> appender && !appender.isImmediateFlush()) {
+                try {
+                    appender.getOutputStream().flush();
+                } catch (IOException e) {
+                    addError("Could not flush [" + appender.getName() + "]", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events waiting to be written.
+     *
+     * @return the number of queued events.
+     */
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Returns the number of events dropped at a level.
+     *
+     * @param level the level of the events.
+     * @return the number of dropped events.
+     */
+    public long getDiscardedCount(Level level) {
+        return discarded[levelIndex(level)].sum();
+    }
+
+    private static int levelIndex(Level level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equals(level)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public Level getDiscardLevel() {
+        return discardLevel;
+    }
+
+    public void setDiscardLevel(Level discardLevel) {
+        this.discardLevel = discardLevel;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer queue: producers claim a slot with a CAS on the tail, and each slot carries
+     * a sequence telling whether it is free or holds an event.
+     */
+    static final class RingBuffer<E> {
+
+        private final AtomicReferenceArray<E> elements;
+
+        private final AtomicLongArray sequences;
+
+        private final int mask;
+
+        private final AtomicLong tail = new AtomicLong();
+
+        private volatile long head;
+
+        RingBuffer(int minCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(minCapacity, 2) - 1) << 1;
+            this.elements = new AtomicReferenceArray<>(capacity);
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(E element) {
+            long position = tail.get();
+            while (true) {
+                long difference = sequences.get((int) position & mask) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        break;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+            int index = (int) position & mask;
+            elements.set(index, element);
+            sequences.set(index, position + 1);
+            return true;
+        }
+
+        E poll() {
+            long position = head;
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+            E element = elements.get(index);
+            elements.set(index, null);
+            sequences.set(index, position + capacity());
+            head = position + 1;
+            return element;
+        }
+
+        int size() {
+            long size = tail.get() - head;
+            return (int) Math.max(0, Math.min(size, capacity()));
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+    }
+}
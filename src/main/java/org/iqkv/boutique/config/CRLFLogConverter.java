@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.iqkv.boutique.util.PrefixTrie;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.springframework.boot.ansi.AnsiColor;
@@ -24,11 +25,15 @@ public class CRLFLogConverter extends CompositeConverter<ILoggingEvent> {
 
     public static final Marker CRLF_SAFE_MARKER = MarkerFactory.getMarker("CRLF_SAFE");
 
-    private static final String[] SAFE_LOGGERS = {
+    /**
+     * Prefixes of the loggers whose messages are never sanitized, as a trie scanned once per event.
+     */
+    private static final PrefixTrie SAFE_LOGGERS = PrefixTrie.of(
         "org.hibernate",
         "org.springframework.boot.autoconfigure",
-        "org.springframework.boot.diagnostics",
-    };
+        "org.springframework.boot.diagnostics"
+    );
+
     private static final Map<String, AnsiElement> ELEMENTS;
 
     static {
@@ -43,27 +48,57 @@ public class CRLFLogConverter extends CompositeConverter<ILoggingEvent> {
         ELEMENTS = Collections.unmodifiableMap(ansiElements);
     }
 
+    /**
+     * The replacement of the CRLF characters, computed on first use, once the ANSI output is configured.
+     */
+    private volatile String replacement;
+
     @Override
     protected String transform(ILoggingEvent event, String in) {
-        AnsiElement element = ELEMENTS.get(getFirstOption());
         List<Marker> markers = event.getMarkerList();
         if ((markers != null && !markers.isEmpty() && markers.get(0).contains(CRLF_SAFE_MARKER)) || isLoggerSafe(event)) {
             return in;
         }
-        String replacement = element == null ? "_" : toAnsiString("_", element);
-        return in.replaceAll("[\n\r\t]", replacement);
+        int length = in.length();
+        int i = 0;
+        while (i < length && !isCrlf(in.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return in;
+        }
+        String crlfReplacement = replacement();
+        StringBuilder out = new StringBuilder(length + 16).append(in, 0, i);
+        for (; i < length; i++) {
+            char c = in.charAt(i);
+            if (isCrlf(c)) {
+                out.append(crlfReplacement);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
     }
 
     protected boolean isLoggerSafe(ILoggingEvent event) {
-        for (String safeLogger : SAFE_LOGGERS) {
-            if (event.getLoggerName().startsWith(safeLogger)) {
-                return true;
-            }
-        }
-        return false;
+        return SAFE_LOGGERS.matchesPrefixOf(event.getLoggerName());
     }
 
     protected String toAnsiString(String in, AnsiElement element) {
         return AnsiOutput.toString(element, in);
     }
+
+    private String replacement() {
+        String crlfReplacement = replacement;
+        if (crlfReplacement == null) {
+            AnsiElement element = ELEMENTS.get(getFirstOption());
+            crlfReplacement = element == null ? "_" : toAnsiString("_", element);
+            replacement = crlfReplacement;
+        }
+        return crlfReplacement;
+    }
+
+    private static boolean isCrlf(char c) {
+        return c == '\n' || c == '\r' || c == '\t';
+    }
 }
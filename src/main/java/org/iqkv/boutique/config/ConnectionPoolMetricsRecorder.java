@@ -0,0 +1,134 @@
+package org.iqkv.boutique.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import reactor.pool.PoolMetricsRecorder;
+
+/**
+ * Records the latencies of a connection pool, next to the gauges of its sizes bound by Spring Boot under the
+ * {@code r2dbc.pool} prefix.
+ * <p>
+ * The acquisitions are timed from the request of a connection to its delivery, and tagged with {@code outcome=failure}
+ * when they timed out after the maximum acquire time or were cancelled, which is how an exhausted pool shows up.
+ */
+public class ConnectionPoolMetricsRecorder implements PoolMetricsRecorder {
+
+    private static final String PREFIX = "r2dbc.pool";
+
+    private final Timer acquireSuccess;
+
+    private final Timer acquireFailure;
+
+    private final Timer allocationSuccess;
+
+    private final Timer allocationFailure;
+
+    private final Timer reset;
+
+    private final Timer destroy;
+
+    private final Timer lifetime;
+
+    private final Timer idleTime;
+
+    private final Counter recycled;
+
+    public ConnectionPoolMetricsRecorder(MeterRegistry meterRegistry, String name) {
+        this.acquireSuccess = acquireTimer(meterRegistry, name, "success");
+        this.acquireFailure = acquireTimer(meterRegistry, name, "failure");
+        this.allocationSuccess = allocationTimer(meterRegistry, name, "success");
+        this.allocationFailure = allocationTimer(meterRegistry, name, "failure");
+        this.reset = Timer.builder(PREFIX + ".reset")
+            .description("Time spent resetting a connection released to the pool")
+            .tags("name", name)
+            .register(meterRegistry);
+        this.destroy = Timer.builder(PREFIX + ".destroy")
+            .description("Time spent closing a connection evicted from the pool")
+            .tags("name", name)
+            .register(meterRegistry);
+        this.lifetime = Timer.builder(PREFIX + ".connection.lifetime")
+            .description("Time between the opening and the closing of a connection")
+            .tags("name", name)
+            .register(meterRegistry);
+        this.idleTime = Timer.builder(PREFIX + ".connection.idle.time")
+            .description("Time a connection stayed idle before being acquired or evicted")
+            .tags("name", name)
+            .register(meterRegistry);
+        this.recycled = Counter.builder(PREFIX + ".recycled")
+            .description("Number of connections released back to the pool")
+            .tags("name", name)
+            .register(meterRegistry);
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String name, String outcome) {
+        return Timer.builder(PREFIX + ".acquire")
+            .description("Time spent waiting for a connection")
+            .tags("name", name, "outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static Timer allocationTimer(MeterRegistry meterRegistry, String name, String outcome) {
+        return Timer.builder(PREFIX + ".allocation")
+            .description("Time spent opening a new connection")
+            .tags("name", name, "outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatency(long latencyMs) {
+        allocationSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatency(long latencyMs) {
+        allocationFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordResetLatency(long latencyMs) {
+        reset.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordDestroyLatency(long latencyMs) {
+        destroy.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordRecycled() {
+        recycled.increment();
+    }
+
+    @Override
+    public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+        lifetime.record(millisecondsSinceAllocation, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordIdleTime(long millisecondsIdle) {
+        idleTime.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordSlowPath() {
+        // Not recorded by the pool
+    }
+
+    @Override
+    public void recordFastPath() {
+        // Not recorded by the pool
+    }
+
+    @Override
+    public void recordPendingSuccessAndLatency(long latencyMs) {
+        acquireSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordPendingFailureAndLatency(long latencyMs) {
+        acquireFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,6 +1,11 @@
 package org.iqkv.boutique.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -9,8 +14,16 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import org.iqkv.boutique.aop.routing.TransactionRoutingAspect;
+import org.iqkv.boutique.repository.IndexAdvisor;
+import org.iqkv.boutique.repository.SqlStatistics;
+import org.iqkv.boutique.web.filter.WriteMarkerWebFilter;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcConnectionDetails;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
@@ -23,12 +36,118 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 
 @Configuration
 @EnableR2dbcRepositories({ "org.iqkv.boutique.repository" })
 @EnableTransactionManagement
 public class DatabaseConfiguration {
 
+    /**
+     * The connection pool, configured by {@code application.database.pool} instead of {@code spring.r2dbc.pool}, so
+     * that its connections are evicted in the background and its latencies are recorded.
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(prefix = "application.database.replica", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public ConnectionPool connectionFactory(
+        R2dbcConnectionDetails connectionDetails,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(connectionDetails.getConnectionFactoryOptions());
+        return createConnectionPool("connectionFactory", connectionFactory, applicationProperties.getDatabase().getPool(), meterRegistry);
+    }
+
+    private static ConnectionPool createConnectionPool(
+        String name,
+        ConnectionFactory connectionFactory,
+        ApplicationProperties.Database.Pool pool,
+        MeterRegistry meterRegistry
+    ) {
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory)
+            .name(name)
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxAcquireTime(pool.getMaxAcquireTime())
+            .maxCreateConnectionTime(pool.getMaxCreateConnectionTime())
+            .maxIdleTime(pool.getMaxIdleTime())
+            .maxLifeTime(pool.getMaxLifeTime())
+            .backgroundEvictionInterval(pool.getBackgroundEvictionInterval())
+            .metricsRecorder(new ConnectionPoolMetricsRecorder(meterRegistry, name));
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            builder.validationQuery(pool.getValidationQuery());
+        }
+        return new ConnectionPool(builder.build());
+    }
+
+    /**
+     * The connection factories when a replica is configured: a pool for the primary, a pool for the replica, and the
+     * routing between them, used by the repositories and the transaction manager.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.database.replica", name = "enabled", havingValue = "true")
+    public static class ReplicaRoutingConfiguration {
+
+        @Bean(destroyMethod = "dispose")
+        public ConnectionPool primaryConnectionFactory(
+            R2dbcConnectionDetails connectionDetails,
+            ApplicationProperties applicationProperties,
+            MeterRegistry meterRegistry
+        ) {
+            ConnectionFactory connectionFactory = ConnectionFactories.get(connectionDetails.getConnectionFactoryOptions());
+            return createConnectionPool("primary", connectionFactory, applicationProperties.getDatabase().getPool(), meterRegistry);
+        }
+
+        @Bean(destroyMethod = "dispose")
+        public ConnectionPool replicaConnectionFactory(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+            ApplicationProperties.Database.Replica replica = applicationProperties.getDatabase().getReplica();
+            ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(replica.getUrl()).mutate();
+            if (StringUtils.hasText(replica.getUsername())) {
+                options.option(ConnectionFactoryOptions.USER, replica.getUsername());
+            }
+            if (StringUtils.hasText(replica.getPassword())) {
+                options.option(ConnectionFactoryOptions.PASSWORD, replica.getPassword());
+            }
+            return createConnectionPool("replica", ConnectionFactories.get(options.build()), replica.getPool(), meterRegistry);
+        }
+
+        @Bean
+        public ReplicaLagMonitor replicaLagMonitor(
+            ConnectionPool replicaConnectionFactory,
+            ApplicationProperties applicationProperties,
+            MeterRegistry meterRegistry
+        ) {
+            return new ReplicaLagMonitor(replicaConnectionFactory, applicationProperties.getDatabase().getReplica(), meterRegistry);
+        }
+
+        @Bean
+        @Primary
+        public ReplicaRoutingConnectionFactory connectionFactory(
+            ConnectionPool primaryConnectionFactory,
+            ConnectionPool replicaConnectionFactory,
+            ReplicaLagMonitor replicaLagMonitor,
+            MeterRegistry meterRegistry
+        ) {
+            return new ReplicaRoutingConnectionFactory(
+                primaryConnectionFactory,
+                replicaConnectionFactory,
+                replicaLagMonitor,
+                meterRegistry
+            );
+        }
+
+        @Bean
+        public TransactionRoutingAspect transactionRoutingAspect(ApplicationProperties applicationProperties) {
+            return new TransactionRoutingAspect(applicationProperties.getDatabase().getReplica().getStickiness());
+        }
+
+        @Bean
+        public WriteMarkerWebFilter writeMarkerWebFilter(ApplicationProperties applicationProperties) {
+            // Carries the writes of the clients from node to node, see TransactionRoutingAspect
+            return new WriteMarkerWebFilter(applicationProperties.getDatabase().getReplica().getStickiness());
+        }
+    }
+
     // LocalDateTime seems to be the only type that is supported across all drivers atm
     // See https://github.com/r2dbc/r2dbc-h2/pull/139 https://github.com/mirromutth/r2dbc-mysql/issues/105
     @Bean
@@ -44,6 +163,16 @@ public class DatabaseConfiguration {
         return R2dbcCustomConversions.of(dialect, converters);
     }
 
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(SqlStatistics sqlStatistics) {
+        return new SqlStatsEndpoint(sqlStatistics);
+    }
+
+    @Bean
+    public IndexAdvisorEndpoint indexAdvisorEndpoint(IndexAdvisor indexAdvisor, ListableBeanFactory beanFactory) {
+        return new IndexAdvisorEndpoint(indexAdvisor, beanFactory);
+    }
+
     @Bean
     public R2dbcDialect dialect(ConnectionFactory connectionFactory) {
         return DialectResolver.getDialect(connectionFactory);
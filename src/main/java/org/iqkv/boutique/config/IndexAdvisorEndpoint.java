@@ -0,0 +1,39 @@
+package org.iqkv.boutique.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.iqkv.boutique.repository.IndexAdvisor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.repository.support.Repositories;
+import reactor.core.publisher.Mono;
+
+/**
+ * Actuator endpoint reporting the predicates of the repositories which are not served by an index, mapped to
+ * {@code /management/index-advisor}.
+ */
+@Endpoint(id = "indexadvisor")
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    private final ListableBeanFactory beanFactory;
+
+    public IndexAdvisorEndpoint(IndexAdvisor indexAdvisor, ListableBeanFactory beanFactory) {
+        this.indexAdvisor = indexAdvisor;
+        this.beanFactory = beanFactory;
+    }
+
+    @ReadOperation
+    public Mono<List<IndexAdvisor.UnindexedPredicate>> unindexedPredicates() {
+        Repositories repositories = new Repositories(beanFactory);
+        List<Class<?>> repositoryInterfaces = new ArrayList<>();
+        for (Class<?> domainType : repositories) {
+            repositories.getRepositoryInformationFor(domainType).ifPresent(information ->
+                repositoryInterfaces.add(information.getRepositoryInterface())
+            );
+        }
+        return indexAdvisor.advise(repositoryInterfaces);
+    }
+}
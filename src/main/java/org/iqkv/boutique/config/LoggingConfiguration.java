@@ -2,13 +2,24 @@ package org.iqkv.boutique.config;
 
 import static tech.jhipster.config.logging.LoggingUtils.*;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggerContextListener;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.spi.ContextAwareBase;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import tech.jhipster.config.JHipsterProperties;
 
@@ -18,10 +29,17 @@ import tech.jhipster.config.JHipsterProperties;
 @Configuration
 public class LoggingConfiguration {
 
+    private static final String ASYNC_CONSOLE_APPENDER_NAME = "ASYNC_CONSOLE";
+
+    private final ApplicationProperties.AsyncLogging asyncLoggingProperties;
+
+    private volatile AsyncBatchingAppender asyncConsoleAppender;
+
     public LoggingConfiguration(
         @Value("${spring.application.name}") String appName,
         @Value("${server.port}") String serverPort,
         JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
         ObjectMapper mapper
     ) throws JsonProcessingException {
         LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
@@ -33,6 +51,7 @@ public class LoggingConfiguration {
 
         JHipsterProperties.Logging loggingProperties = jHipsterProperties.getLogging();
         JHipsterProperties.Logging.Logstash logstashProperties = loggingProperties.getLogstash();
+        this.asyncLoggingProperties = applicationProperties.getAsyncLogging();
 
         if (loggingProperties.isUseJsonFormat()) {
             addJsonConsoleAppender(context, customFields);
@@ -43,5 +62,104 @@ public class LoggingConfiguration {
         if (loggingProperties.isUseJsonFormat() || logstashProperties.isEnabled()) {
             addContextListener(context, customFields, loggingProperties);
         }
+        if (asyncLoggingProperties.isEnabled()) {
+            // Registered last, so that the console appender is wrapped after JHipster has replaced it on a reset
+            addAsyncConsoleAppender(context);
+            AsyncConsoleContextListener listener = new AsyncConsoleContextListener();
+            listener.setContext(context);
+            context.addListener(listener);
+        }
+    }
+
+    @Bean
+    public MeterBinder asyncLoggingMetrics() {
+        return registry -> {
+            if (!asyncLoggingProperties.isEnabled()) {
+                return;
+            }
+            Gauge.builder("logging.async.queue", this, LoggingConfiguration::queueDepth)
+                .description("Number of log events waiting to be written")
+                .register(registry);
+            for (Level level : new Level[] { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR }) {
+                FunctionCounter.builder("logging.async.discarded", this, configuration -> configuration.discardedCount(level))
+                    .description("Number of log events dropped because the queue was full or almost full")
+                    .tag("level", level.levelStr.toLowerCase())
+                    .register(registry);
+            }
+        };
+    }
+
+    private double queueDepth() {
+        AsyncBatchingAppender appender = asyncConsoleAppender;
+        return appender == null ? 0 : appender.getQueueDepth();
+    }
+
+    private double discardedCount(Level level) {
+        AsyncBatchingAppender appender = asyncConsoleAppender;
+        return appender == null ? 0 : appender.getDiscardedCount(level);
+    }
+
+    /**
+     * Moves the console appender of the root logger behind an {@link AsyncBatchingAppender}, so that the threads logging
+     * never wait on the console.
+     */
+    private void addAsyncConsoleAppender(LoggerContext context) {
+        Logger rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        Appender<ILoggingEvent> consoleAppender = rootLogger.getAppender("CONSOLE");
+        if (consoleAppender == null) {
+            return;
+        }
+        AsyncBatchingAppender asyncAppender = new AsyncBatchingAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setName(ASYNC_CONSOLE_APPENDER_NAME);
+        asyncAppender.setQueueSize(asyncLoggingProperties.getQueueSize());
+        asyncAppender.setBatchSize(asyncLoggingProperties.getBatchSize());
+        asyncAppender.setDiscardingThreshold(asyncLoggingProperties.getDiscardingThreshold());
+        asyncAppender.setDiscardLevel(Level.toLevel(asyncLoggingProperties.getDiscardLevel(), Level.INFO));
+        asyncAppender.setMaxFlushTime((int) asyncLoggingProperties.getMaxFlushTime().toMillis());
+        if (consoleAppender instanceof OutputStreamAppender<ILoggingEvent> outputStreamAppender) {
+            // Flushed once per batch instead
+            outputStreamAppender.setImmediateFlush(false);
+        }
+        asyncAppender.addAppender(consoleAppender);
+        asyncAppender.start();
+        rootLogger.addAppender(asyncAppender);
+        rootLogger.detachAppender(consoleAppender);
+        AsyncBatchingAppender previous = asyncConsoleAppender;
+        asyncConsoleAppender = asyncAppender;
+        if (previous != null && previous.isStarted()) {
+            previous.stop();
+        }
+    }
+
+    /**
+     * Wraps the console appender again when the logging configuration is reloaded.
+     */
+    private class AsyncConsoleContextListener extends ContextAwareBase implements LoggerContextListener {
+
+        @Override
+        public boolean isResetResistant() {
+            return true;
+        }
+
+        @Override
+        public void onStart(LoggerContext context) {
+            addAsyncConsoleAppender(context);
+        }
+
+        @Override
+        public void onReset(LoggerContext context) {
+            addAsyncConsoleAppender(context);
+        }
+
+        @Override
+        public void onStop(LoggerContext context) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onLevelChange(Logger logger, Level level) {
+            // Nothing to do
+        }
     }
 }
@@ -0,0 +1,24 @@
+package org.iqkv.boutique.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
+import org.iqkv.boutique.aop.observation.ServiceObservationAspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class ObservationConfiguration {
+
+    @Bean
+    public ReactiveObserver reactiveObserver(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        return new ReactiveObserver(observationRegistry, meterRegistry);
+    }
+
+    @Bean
+    public ServiceObservationAspect serviceObservationAspect(ReactiveObserver reactiveObserver, ObservationRegistry observationRegistry) {
+        return new ServiceObservationAspect(reactiveObserver, observationRegistry);
+    }
+}
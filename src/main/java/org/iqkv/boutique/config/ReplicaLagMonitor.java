@@ -0,0 +1,90 @@
+package org.iqkv.boutique.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import reactor.core.publisher.Mono;
+
+/**
+ * Monitors the replication lag of the replica, which is only used while its lag is under
+ * {@code application.database.replica.max-lag}.
+ * <p>
+ * The lag is the age of the last transaction replayed, or zero when the replica has replayed all the WAL it received,
+ * so that an idle primary does not make the replica look late. The replica is considered unavailable until its lag is
+ * first read, and whenever it cannot be read.
+ */
+public class ReplicaLagMonitor {
+
+    static final String LAG_QUERY =
+        "SELECT CASE WHEN pg_last_wal_receive_lsn() IS NULL OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0" +
+        " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END::float8";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DatabaseClient replicaClient;
+
+    private final double maxLagSeconds;
+
+    private final Duration checkTimeout;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(
+        ConnectionFactory replica,
+        ApplicationProperties.Database.Replica replicaProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.replicaClient = DatabaseClient.create(replica);
+        this.maxLagSeconds = replicaProperties.getMaxLag().toMillis() / 1000.0;
+        this.checkTimeout = replicaProperties.getLagCheckInterval();
+        Gauge.builder("r2dbc.replica.lag", this, monitor -> monitor.lagSeconds)
+            .description("Replication lag of the replica, or NaN if it cannot be read")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether the replica can serve the reads.
+     *
+     * @return {@code true} if the lag of the replica is known and under the maximum lag.
+     */
+    public boolean isAvailable() {
+        return lagSeconds <= maxLagSeconds;
+    }
+
+    /**
+     * Read the replication lag of the replica.
+     *
+     * @return a {@link Mono} to signal the end of the check.
+     */
+    @Scheduled(fixedDelayString = "${application.database.replica.lag-check-interval:PT5S}")
+    public Mono<Void> checkLag() {
+        return replicaClient
+            .sql(LAG_QUERY)
+            .map(row -> row.get(0, Double.class))
+            .one()
+            .timeout(checkTimeout)
+            .doOnNext(this::updateLag)
+            .onErrorResume(e -> {
+                log.warn("Could not read the replication lag, routing the reads to the primary: {}", e.toString());
+                updateLag(Double.NaN);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    void updateLag(double lag) {
+        boolean wasAvailable = isAvailable();
+        lagSeconds = lag;
+        if (wasAvailable && !isAvailable()) {
+            log.warn("Replica is {} s late, routing the reads to the primary", lag);
+        } else if (!wasAvailable && isAvailable()) {
+            log.info("Replica is {} s late, routing the read-only transactions to it", lag);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.iqkv.boutique.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.Map;
+import org.iqkv.boutique.aop.routing.TransactionRoutingAspect;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Connection factory taking the connections of the read-only transactions from the replica while it is not late, and
+ * all the other connections from the primary.
+ *
+ * @see TransactionRoutingAspect
+ * @see ReplicaLagMonitor
+ */
+public class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+    private static final String PRIMARY = "primary";
+
+    private static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    public ReplicaRoutingConnectionFactory(
+        ConnectionFactory primary,
+        ConnectionFactory replica,
+        ReplicaLagMonitor replicaLagMonitor,
+        MeterRegistry meterRegistry
+    ) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetConnectionFactories(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetConnectionFactory(primary);
+        setLenientFallback(false);
+        this.primaryConnections = routedConnections(meterRegistry, PRIMARY);
+        this.replicaConnections = routedConnections(meterRegistry, REPLICA);
+    }
+
+    private static Counter routedConnections(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("r2dbc.routing.connections")
+            .description("Number of connections requested, by database")
+            .tag("target", target)
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> {
+            if (TransactionRoutingAspect.isReadOnly(context) && replicaLagMonitor.isAvailable()) {
+                replicaConnections.increment();
+                return Mono.just(REPLICA);
+            }
+            primaryConnections.increment();
+            return Mono.just(PRIMARY);
+        });
+    }
+}
@@ -2,32 +2,28 @@ package org.iqkv.boutique.config;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 import static org.springframework.security.oauth2.core.oidc.StandardClaimNames.PREFERRED_USERNAME;
-import static org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers.pathMatchers;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import org.iqkv.boutique.security.AuthoritiesConstants;
 import org.iqkv.boutique.security.SecurityUtils;
 import org.iqkv.boutique.security.oauth2.AudienceValidator;
+import org.iqkv.boutique.security.oauth2.JwkSetCache;
+import org.iqkv.boutique.security.oauth2.UserInfoCache;
+import org.iqkv.boutique.security.oauth2.VerifiedTokenCache;
+import org.iqkv.boutique.web.filter.RouteClassifier;
 import org.iqkv.boutique.web.filter.SpaWebFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcReactiveOAuth2UserService;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
-import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.userinfo.ReactiveOAuth2UserService;
 import org.springframework.security.oauth2.client.web.server.DefaultServerOAuth2AuthorizationRequestResolver;
@@ -44,9 +40,6 @@ import org.springframework.security.web.server.csrf.CookieServerCsrfTokenReposit
 import org.springframework.security.web.server.csrf.ServerCsrfTokenRequestAttributeHandler;
 import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHeadersWriter;
 import org.springframework.security.web.server.header.XFrameOptionsServerHttpHeadersWriter.Mode;
-import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
-import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import tech.jhipster.config.JHipsterProperties;
 import tech.jhipster.web.filter.reactive.CookieCsrfFilter;
@@ -62,27 +55,31 @@ public class SecurityConfiguration {
 
     private final ReactiveClientRegistrationRepository clientRegistrationRepository;
 
-    // See https://github.com/jhipster/generator-jhipster/issues/18868
-    // We don't use a distributed cache or the user selected cache implementation here on purpose
-    private final Cache<String, Mono<Jwt>> users = Caffeine.newBuilder()
-        .maximumSize(10_000)
-        .expireAfterWrite(Duration.ofHours(1))
-        .recordStats()
-        .build();
+    private final UserInfoCache userInfoCache;
 
-    public SecurityConfiguration(ReactiveClientRegistrationRepository clientRegistrationRepository, JHipsterProperties jHipsterProperties) {
+    private final JwkSetCache jwkSetCache;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public SecurityConfiguration(
+        ReactiveClientRegistrationRepository clientRegistrationRepository,
+        JHipsterProperties jHipsterProperties,
+        UserInfoCache userInfoCache,
+        JwkSetCache jwkSetCache,
+        VerifiedTokenCache verifiedTokenCache
+    ) {
         this.clientRegistrationRepository = clientRegistrationRepository;
         this.jHipsterProperties = jHipsterProperties;
+        this.userInfoCache = userInfoCache;
+        this.jwkSetCache = jwkSetCache;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
         http
-            .securityMatcher(
-                new NegatedServerWebExchangeMatcher(
-                    new OrServerWebExchangeMatcher(pathMatchers("/app/**", "/i18n/**", "/content/**", "/swagger-ui/**"))
-                )
-            )
+            // Static resources: "/app/**", "/i18n/**", "/content/**" and "/swagger-ui/**"
+            .securityMatcher(RouteClassifier.notStaticResources())
             .cors(withDefaults())
             .csrf(csrf ->
                 csrf
@@ -91,7 +88,8 @@ public class SecurityConfiguration {
                     .csrfTokenRequestHandler(new ServerCsrfTokenRequestAttributeHandler()))
             // See https://github.com/spring-projects/spring-security/issues/5766
             .addFilterAt(new CookieCsrfFilter(), SecurityWebFiltersOrder.REACTOR_CONTEXT)
-            .addFilterAfter(new SpaWebFilter(), SecurityWebFiltersOrder.HTTPS_REDIRECT)
+            // After the CSRF filters, so that the index.html served from memory still sets the XSRF-TOKEN cookie
+            .addFilterAfter(new SpaWebFilter(), SecurityWebFiltersOrder.REACTOR_CONTEXT)
             .headers(
                 headers ->
                     headers
@@ -185,22 +183,21 @@ public class SecurityConfiguration {
 
     @Bean
     ReactiveJwtDecoder jwtDecoder(ReactiveClientRegistrationRepository registrations) {
-        Mono<ClientRegistration> clientRegistration = registrations.findByRegistrationId("oidc");
-
-        return clientRegistration
+        // Built on first use, so that startup does not depend on the IdP
+        Mono<ReactiveJwtDecoder> jwtDecoder = registrations
+            .findByRegistrationId("oidc")
             .map(
                 oidc ->
-                    createJwtDecoder(
-                        oidc.getProviderDetails().getIssuerUri(),
-                        oidc.getProviderDetails().getJwkSetUri(),
-                        oidc.getProviderDetails().getUserInfoEndpoint().getUri()
-                    )
+                    createJwtDecoder(oidc.getProviderDetails().getIssuerUri(), oidc.getProviderDetails().getUserInfoEndpoint().getUri())
             )
-            .block();
+            .switchIfEmpty(Mono.error(() -> new IllegalStateException("No oidc client registration")))
+            .cache(decoder -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+
+        return token -> jwtDecoder.flatMap(decoder -> decoder.decode(token));
     }
 
-    private ReactiveJwtDecoder createJwtDecoder(String issuerUri, String jwkSetUri, String userInfoUri) {
-        NimbusReactiveJwtDecoder jwtDecoder = new NimbusReactiveJwtDecoder(jwkSetUri);
+    private ReactiveJwtDecoder createJwtDecoder(String issuerUri, String userInfoUri) {
+        NimbusReactiveJwtDecoder jwtDecoder = NimbusReactiveJwtDecoder.withJwkSource(jwkSetCache::select).build();
         OAuth2TokenValidator<Jwt> audienceValidator = new AudienceValidator(jHipsterProperties.getSecurity().getOauth2().getAudience());
         OAuth2TokenValidator<Jwt> withIssuer = JwtValidators.createDefaultWithIssuer(issuerUri);
         OAuth2TokenValidator<Jwt> withAudience = new DelegatingOAuth2TokenValidator<>(withIssuer, audienceValidator);
@@ -210,47 +207,18 @@ public class SecurityConfiguration {
         return new ReactiveJwtDecoder() {
             @Override
             public Mono<Jwt> decode(String token) throws JwtException {
-                return jwtDecoder.decode(token).flatMap(jwt -> enrich(token, jwt));
+                // Only tokens seen for the first time go through signature, issuer and audience checks, and are completed
+                // with the user info: the same Jwt instance then comes back with each request carrying the token, which
+                // the caches keyed by token instance rely on
+                return verifiedTokenCache.decode(token, verified -> jwtDecoder.decode(verified).flatMap(this::enrich));
             }
 
-            private Mono<Jwt> enrich(String token, Jwt jwt) {
+            private Mono<Jwt> enrich(Jwt jwt) {
                 // Only look up user information if identity claims are missing
                 if (jwt.hasClaim("given_name") && jwt.hasClaim("family_name")) {
                     return Mono.just(jwt);
                 }
-                // Get user info from `users` cache if present
-                return Optional.ofNullable(users.getIfPresent(jwt.getSubject())).orElseGet(() -> // Retrieve user info from OAuth provider if not already loaded
-                    WebClient.create()
-                        .get()
-                        .uri(userInfoUri)
-                        .headers(headers -> headers.setBearerAuth(token))
-                        .retrieve()
-                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                        .map(userInfo ->
-                            Jwt.withTokenValue(jwt.getTokenValue())
-                                .subject(jwt.getSubject())
-                                .audience(jwt.getAudience())
-                                .headers(headers -> headers.putAll(jwt.getHeaders()))
-                                .claims(claims -> {
-                                    String username = userInfo.get("preferred_username").toString();
-                                    // special handling for Auth0
-                                    if (userInfo.get("sub").toString().contains("|") && username.contains("@")) {
-                                        userInfo.put("email", username);
-                                    }
-                                    // Allow full name in a name claim - happens with Auth0
-                                    if (userInfo.get("name") != null) {
-                                        String[] name = userInfo.get("name").toString().split("\\s+");
-                                        if (name.length > 0) {
-                                            userInfo.put("given_name", name[0]);
-                                            userInfo.put("family_name", String.join(" ", Arrays.copyOfRange(name, 1, name.length)));
-                                        }
-                                    }
-                                    claims.putAll(userInfo);
-                                })
-                                .claims(claims -> claims.putAll(jwt.getClaims()))
-                                .build())
-                        // Put user info into the `users` cache
-                        .doOnNext(newJwt -> users.put(jwt.getSubject(), Mono.just(newJwt))));
+                return userInfoCache.enrich(jwt, userInfoUri);
             }
         };
     }
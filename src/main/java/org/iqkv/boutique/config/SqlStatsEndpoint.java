@@ -0,0 +1,39 @@
+package org.iqkv.boutique.config;
+
+import java.util.List;
+import org.iqkv.boutique.repository.SqlStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Actuator endpoint exposing the statistics of the SQL statements run by the repositories, mapped to
+ * {@code /management/sql-stats}.
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final SqlStatistics sqlStatistics;
+
+    public SqlStatsEndpoint(SqlStatistics sqlStatistics) {
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    @ReadOperation
+    public SqlStatsDescriptor sqlStats() {
+        return new SqlStatsDescriptor(sqlStatistics.getStatistics(), sqlStatistics.getUntracked());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatistics.reset();
+    }
+
+    /**
+     * The statistics of the statements, the statements taking the most time first.
+     *
+     * @param statements the statistics of each statement template.
+     * @param untracked the number of executions not tracked, once the maximum number of templates was reached.
+     */
+    public record SqlStatsDescriptor(List<SqlStatistics.StatementStatistics> statements, long untracked) {}
+}
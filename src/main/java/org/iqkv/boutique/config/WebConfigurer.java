@@ -1,10 +1,14 @@
 package org.iqkv.boutique.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.concurrent.TimeUnit;
+import org.iqkv.boutique.web.filter.CompressionWebFilter;
+import org.iqkv.boutique.web.filter.ImmutableAssetsWebFilter;
 import org.iqkv.boutique.web.rest.errors.ExceptionTranslator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.reactive.ResourceHandlerRegistrationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -82,4 +86,21 @@ public class WebConfigurer implements WebFluxConfigurer {
         // Use a cache filter that only match selected paths
         return new CachingHttpHeadersFilter(TimeUnit.DAYS.toMillis(jHipsterProperties.getHttp().getCache().getTimeToLiveInDays()));
     }
+
+    @Bean
+    @Profile(JHipsterConstants.SPRING_PROFILE_PRODUCTION)
+    public ImmutableAssetsWebFilter immutableAssetsWebFilter() {
+        // Content-hashed assets never change, they can be cached forever
+        return new ImmutableAssetsWebFilter();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.compression", name = "enabled", havingValue = "true")
+    // Before the Spring Security filter chain (order -100), so that index.html and the 401/403 responses are compressed,
+    // and before the idempotency filter, so that the recorded responses are replayed uncompressed and compressed again
+    @Order(-101)
+    public CompressionWebFilter compressionWebFilter(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        // Replaces server.compression, which applies the same policy to all the responses
+        return new CompressionWebFilter(applicationProperties, meterRegistry);
+    }
 }
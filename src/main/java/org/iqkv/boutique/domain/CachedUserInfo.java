@@ -0,0 +1,98 @@
+package org.iqkv.boutique.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * The claims fetched from the IdP userinfo endpoint for a subject, shared by all nodes.
+ */
+@Table("cached_user_info")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class CachedUserInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The subject of the user.
+     */
+    @Id
+    @Column("id")
+    private String id;
+
+    /**
+     * The userinfo claims, as a JSON object.
+     */
+    @Column("claims")
+    private String claims;
+
+    @Column("expires_at")
+    private Instant expiresAt;
+
+    public String getId() {
+        return this.id;
+    }
+
+    public CachedUserInfo id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getClaims() {
+        return this.claims;
+    }
+
+    public CachedUserInfo claims(String claims) {
+        this.setClaims(claims);
+        return this;
+    }
+
+    public void setClaims(String claims) {
+        this.claims = claims;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public CachedUserInfo expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CachedUserInfo)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((CachedUserInfo) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CachedUserInfo{" +
+            "id=" + getId() +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,155 @@
+package org.iqkv.boutique.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * The response recorded for a request carrying an {@code Idempotency-Key} header, replayed to its retries.
+ */
+@Table("idempotency_key")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class IdempotencyKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private String id;
+
+    /**
+     * The SHA-256 of the body of the first request, which the retries must repeat.
+     */
+    @Column("request_hash")
+    private String requestHash;
+
+    /**
+     * The response status, or {@code null} while the first request is still being processed.
+     */
+    @Column("response_status")
+    private Integer responseStatus;
+
+    /**
+     * The replayed response headers, as a JSON object of header names to values.
+     */
+    @Column("response_headers")
+    private String responseHeaders;
+
+    @Column("response_body")
+    private byte[] responseBody;
+
+    @Column("expires_at")
+    private Instant expiresAt;
+
+    public String getId() {
+        return this.id;
+    }
+
+    public IdempotencyKey id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestHash() {
+        return this.requestHash;
+    }
+
+    public IdempotencyKey requestHash(String requestHash) {
+        this.setRequestHash(requestHash);
+        return this;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getResponseStatus() {
+        return this.responseStatus;
+    }
+
+    public IdempotencyKey responseStatus(Integer responseStatus) {
+        this.setResponseStatus(responseStatus);
+        return this;
+    }
+
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getResponseHeaders() {
+        return this.responseHeaders;
+    }
+
+    public IdempotencyKey responseHeaders(String responseHeaders) {
+        this.setResponseHeaders(responseHeaders);
+        return this;
+    }
+
+    public void setResponseHeaders(String responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    public byte[] getResponseBody() {
+        return this.responseBody;
+    }
+
+    public IdempotencyKey responseBody(byte[] responseBody) {
+        this.setResponseBody(responseBody);
+        return this;
+    }
+
+    public void setResponseBody(byte[] responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public IdempotencyKey expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isCompleted() {
+        return this.responseStatus != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdempotencyKey)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((IdempotencyKey) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IdempotencyKey{" +
+            "id=" + getId() +
+            ", requestHash='" + getRequestHash() + "'" +
+            ", responseStatus=" + getResponseStatus() +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
@@ -7,6 +7,7 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import org.iqkv.boutique.domain.enumeration.Size;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -47,6 +48,14 @@ public class Product implements Serializable {
     @Column("image_content_type")
     private String imageContentType;
 
+    /**
+     * Stock held on the product row itself. Only changed through conditional updates, see
+     * {@link org.iqkv.boutique.repository.ProductRepository#decrementStock(Long, Integer)}.
+     */
+    @ReadOnlyProperty
+    @Column("stock")
+    private Integer stock;
+
     @Transient
     @JsonIgnoreProperties(value = { "products" }, allowSetters = true)
     private ProductCategory productCategory;
@@ -147,6 +156,19 @@ public class Product implements Serializable {
         this.imageContentType = imageContentType;
     }
 
+    public Integer getStock() {
+        return this.stock;
+    }
+
+    public Product stock(Integer stock) {
+        this.setStock(stock);
+        return this;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
     public ProductCategory getProductCategory() {
         return this.productCategory;
     }
@@ -199,6 +221,7 @@ public class Product implements Serializable {
             ", productSize='" + getProductSize() + "'" +
             ", image='" + getImage() + "'" +
             ", imageContentType='" + getImageContentType() + "'" +
+            ", stock=" + getStock() +
             "}";
     }
 }
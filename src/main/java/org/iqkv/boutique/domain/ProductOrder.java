@@ -1,9 +1,11 @@
 package org.iqkv.boutique.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.Instant;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
@@ -46,6 +48,11 @@ public class ProductOrder implements Serializable {
     @Column("cart_id")
     private Long cartId;
 
+    // Placed date of the cart, which is the partition key of the order, so that it is stored with its cart
+    @JsonIgnore
+    @Column("cart_placed_date")
+    private Instant cartPlacedDate;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -108,6 +115,7 @@ public class ProductOrder implements Serializable {
     public void setCart(ShoppingCart shoppingCart) {
         this.cart = shoppingCart;
         this.cartId = shoppingCart != null ? shoppingCart.getId() : null;
+        this.cartPlacedDate = shoppingCart != null ? shoppingCart.getPlacedDate() : null;
     }
 
     public ProductOrder cart(ShoppingCart shoppingCart) {
@@ -131,6 +139,14 @@ public class ProductOrder implements Serializable {
         this.cartId = shoppingCart;
     }
 
+    public Instant getCartPlacedDate() {
+        return this.cartPlacedDate;
+    }
+
+    public void setCartPlacedDate(Instant cartPlacedDate) {
+        this.cartPlacedDate = cartPlacedDate;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -0,0 +1,155 @@
+package org.iqkv.boutique.domain;
+
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Items of a {@link Product} held aside for a checkout until {@code expiresAt}.
+ */
+@Table("stock_reservation")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class StockReservation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @NotNull(message = "must not be null")
+    @Column("product_id")
+    private Long productId;
+
+    /**
+     * The stripe the items were taken from, or {@code null} if they were taken from the product row.
+     */
+    @Column("stripe")
+    private Integer stripe;
+
+    @NotNull(message = "must not be null")
+    @Min(value = 1)
+    @Column("quantity")
+    private Integer quantity;
+
+    @NotNull(message = "must not be null")
+    @Column("expires_at")
+    private Instant expiresAt;
+
+    /**
+     * The login of the user who made the reservation, the only one allowed to confirm or release it besides admins.
+     */
+    @Column("reserved_by")
+    private String reservedBy;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public StockReservation id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return this.productId;
+    }
+
+    public StockReservation productId(Long productId) {
+        this.setProductId(productId);
+        return this;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getStripe() {
+        return this.stripe;
+    }
+
+    public StockReservation stripe(Integer stripe) {
+        this.setStripe(stripe);
+        return this;
+    }
+
+    public void setStripe(Integer stripe) {
+        this.stripe = stripe;
+    }
+
+    public Integer getQuantity() {
+        return this.quantity;
+    }
+
+    public StockReservation quantity(Integer quantity) {
+        this.setQuantity(quantity);
+        return this;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public StockReservation expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getReservedBy() {
+        return this.reservedBy;
+    }
+
+    public StockReservation reservedBy(String reservedBy) {
+        this.setReservedBy(reservedBy);
+        return this;
+    }
+
+    public void setReservedBy(String reservedBy) {
+        this.reservedBy = reservedBy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StockReservation)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((StockReservation) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "StockReservation{" +
+            "id=" + getId() +
+            ", productId=" + getProductId() +
+            ", stripe=" + getStripe() +
+            ", quantity=" + getQuantity() +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            ", reservedBy='" + getReservedBy() + "'" +
+            "}";
+    }
+}
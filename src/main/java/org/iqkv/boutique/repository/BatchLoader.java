@@ -0,0 +1,176 @@
+package org.iqkv.boutique.repository;
+
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.iqkv.boutique.aop.routing.TransactionRoutingAspect;
+import org.springframework.transaction.reactive.TransactionContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Batch the lookups of values by key: the keys requested within a window, by any number of concurrent subscribers, are
+ * loaded by a single query, whose values are then dispatched to the subscribers by key.
+ * <p>
+ * A batch is loaded when its window elapses, or as soon as it holds the maximum number of keys. The query runs outside
+ * of the transactions of the subscribers, with the routing mark and the observation of the first subscriber of the
+ * batch: the reads of the subscribers routed to the replica and of the ones routed to the primary are batched
+ * separately. Subscribers in a read-write transaction, which may read their own uncommitted writes, load their keys
+ * themselves, as do all the subscribers with a maximum of one key.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the loaded values.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Flux<V>> loader;
+
+    private final Function<V, K> keyMapper;
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    private final Scheduler scheduler;
+
+    /**
+     * The batches collecting keys, read from the primary and from a replica.
+     */
+    private Batch currentPrimary;
+
+    private Batch currentReplica;
+
+    /**
+     * @param loader the query loading the values of a batch of keys.
+     * @param keyMapper the key of a loaded value.
+     * @param window the duration during which the keys are collected, zero to collect them until the next tick of the
+     *        scheduler.
+     * @param maxBatchSize the maximum number of keys of a batch.
+     */
+    public BatchLoader(Function<Collection<K>, Flux<V>> loader, Function<V, K> keyMapper, Duration window, int maxBatchSize) {
+        this(loader, keyMapper, window, maxBatchSize, Schedulers.parallel());
+    }
+
+    BatchLoader(
+        Function<Collection<K>, Flux<V>> loader,
+        Function<V, K> keyMapper,
+        Duration window,
+        int maxBatchSize,
+        Scheduler scheduler
+    ) {
+        this.loader = loader;
+        this.keyMapper = keyMapper;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Load the values of a key, with the keys requested by the other subscribers within the window.
+     *
+     * @param key the key.
+     * @return the values of the key.
+     */
+    public Flux<V> load(K key) {
+        if (maxBatchSize <= 1) {
+            return Flux.defer(() -> loader.apply(List.of(key)));
+        }
+        return Flux.deferContextual(context -> {
+            if (isInReadWriteTransaction(context)) {
+                return loader.apply(List.of(key));
+            }
+            boolean replica = TransactionRoutingAspect.isReadOnly(context);
+            Batch batch;
+            boolean full;
+            synchronized (this) {
+                batch = replica ? currentReplica : currentPrimary;
+                if (batch == null) {
+                    Batch scheduled = new Batch(replica, dispatchContext(context));
+                    setCurrent(replica, scheduled);
+                    scheduler.schedule(() -> dispatchIfCurrent(scheduled), window.toNanos(), TimeUnit.NANOSECONDS);
+                    batch = scheduled;
+                }
+                batch.keys.add(key);
+                full = batch.keys.size() >= maxBatchSize;
+                if (full) {
+                    setCurrent(replica, null);
+                }
+            }
+            if (full) {
+                batch.dispatch();
+            }
+            return batch.values.asMono().flatMapIterable(values -> values.getOrDefault(key, List.of()));
+        });
+    }
+
+    private void dispatchIfCurrent(Batch batch) {
+        synchronized (this) {
+            if ((batch.replica ? currentReplica : currentPrimary) != batch) {
+                // Already dispatched when it was full
+                return;
+            }
+            setCurrent(batch.replica, null);
+        }
+        batch.dispatch();
+    }
+
+    private void setCurrent(boolean replica, Batch batch) {
+        if (replica) {
+            currentReplica = batch;
+        } else {
+            currentPrimary = batch;
+        }
+    }
+
+    private static boolean isInReadWriteTransaction(ContextView context) {
+        return context
+            .<TransactionContext>getOrEmpty(TransactionContext.class)
+            .filter(transaction -> transaction.isActualTransactionActive() && !transaction.isCurrentTransactionReadOnly())
+            .isPresent();
+    }
+
+    /**
+     * The context of the query of a batch: only the routing mark and the observation of its first subscriber.
+     */
+    private static Context dispatchContext(ContextView context) {
+        Context dispatchContext = Context.of(TransactionRoutingAspect.READ_ONLY, TransactionRoutingAspect.isReadOnly(context));
+        if (context.hasKey(ObservationThreadLocalAccessor.KEY)) {
+            dispatchContext = dispatchContext.put(ObservationThreadLocalAccessor.KEY, context.get(ObservationThreadLocalAccessor.KEY));
+        }
+        return dispatchContext;
+    }
+
+    private final class Batch {
+
+        private final boolean replica;
+
+        private final Context context;
+
+        private final Set<K> keys = new LinkedHashSet<>();
+
+        private final Sinks.One<Map<K, Collection<V>>> values = Sinks.one();
+
+        Batch(boolean replica, Context context) {
+            this.replica = replica;
+            this.context = context;
+        }
+
+        void dispatch() {
+            // Deferred, so that a loader failing before returning its Flux also signals the error to the subscribers
+            Flux.defer(() -> loader.apply(keys))
+                .collectMultimap(keyMapper)
+                .contextWrite(context)
+                .subscribe(values::tryEmitValue, values::tryEmitError);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.iqkv.boutique.repository;
+
+import java.time.Instant;
+import org.iqkv.boutique.domain.CachedUserInfo;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the CachedUserInfo entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface CachedUserInfoRepository extends ReactiveCrudRepository<CachedUserInfo, String> {
+    @Query("SELECT * FROM cached_user_info WHERE id = :id AND expires_at > :now")
+    Mono<CachedUserInfo> findUnexpiredById(String id, Instant now);
+
+    @Modifying
+    @Query(
+        "INSERT INTO cached_user_info (id, claims, expires_at) VALUES (:id, :claims, :expiresAt)" +
+        " ON CONFLICT (id) DO UPDATE SET claims = EXCLUDED.claims, expires_at = EXCLUDED.expires_at"
+    )
+    Mono<Long> upsert(String id, String claims, Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM cached_user_info WHERE expires_at < :now")
+    Mono<Long> deleteExpired(Instant now);
+}
@@ -52,6 +52,14 @@ interface CustomerDetailsRepositoryInternal {
     Flux<CustomerDetails> findAll();
 
     Mono<CustomerDetails> findById(Long id);
+
+    /**
+     * Returns the id of the customer of a user.
+     *
+     * @param login the login of the user.
+     * @return the id of the customer, or empty if the user has none.
+     */
+    Mono<Long> findIdByUserLogin(String login);
     // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
     // Flux<CustomerDetails> findAllBy(Pageable pageable, Criteria criteria);
 
@@ -3,6 +3,7 @@ package org.iqkv.boutique.repository;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.List;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
 import org.iqkv.boutique.domain.CustomerDetails;
 import org.iqkv.boutique.repository.rowmapper.CustomerDetailsRowMapper;
 import org.iqkv.boutique.repository.rowmapper.UserRowMapper;
@@ -36,10 +37,15 @@ class CustomerDetailsRepositoryInternalImpl
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final ReactiveObserver reactiveObserver;
+    private final SqlStatistics sqlStatistics;
 
     private final UserRowMapper userMapper;
     private final CustomerDetailsRowMapper customerdetailsMapper;
 
+    private static final String ID_BY_USER_LOGIN_QUERY =
+        "SELECT c.id FROM customer_details c JOIN jhi_user u ON u.id = c.user_id WHERE u.login = $1";
+
     private static final Table entityTable = Table.aliased("customer_details", EntityManager.ENTITY_ALIAS);
     private static final Table userTable = Table.aliased("jhi_user", "e_user");
 
@@ -49,7 +55,9 @@ class CustomerDetailsRepositoryInternalImpl
         UserRowMapper userMapper,
         CustomerDetailsRowMapper customerdetailsMapper,
         R2dbcEntityOperations entityOperations,
-        R2dbcConverter converter
+        R2dbcConverter converter,
+        ReactiveObserver reactiveObserver,
+        SqlStatistics sqlStatistics
     ) {
         super(
             new MappingRelationalEntityInformation(converter.getMappingContext().getRequiredPersistentEntity(CustomerDetails.class)),
@@ -59,6 +67,8 @@ class CustomerDetailsRepositoryInternalImpl
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.reactiveObserver = reactiveObserver;
+        this.sqlStatistics = sqlStatistics;
         this.userMapper = userMapper;
         this.customerdetailsMapper = customerdetailsMapper;
     }
@@ -79,7 +89,7 @@ class CustomerDetailsRepositoryInternalImpl
             .equals(Column.create("id", userTable));
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
         String select = entityManager.createSelect(selectFrom, CustomerDetails.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        return reactiveObserver.observe(sqlStatistics.track(select, db.sql(select).map(this::process)), "CustomerDetails");
     }
 
     @Override
@@ -93,6 +103,12 @@ class CustomerDetailsRepositoryInternalImpl
         return createQuery(null, whereClause).one();
     }
 
+    @Override
+    public Mono<Long> findIdByUserLogin(String login) {
+        RowsFetchSpec<Long> query = db.sql(ID_BY_USER_LOGIN_QUERY).bind(0, login).map((row, metadata) -> row.get(0, Long.class));
+        return reactiveObserver.observe(sqlStatistics.track(ID_BY_USER_LOGIN_QUERY, query), "CustomerDetails").one();
+    }
+
     @Override
     public Mono<CustomerDetails> findOneWithEagerRelationships(Long id) {
         return findById(id);
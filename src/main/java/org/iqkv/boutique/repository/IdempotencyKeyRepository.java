@@ -0,0 +1,41 @@
+package org.iqkv.boutique.repository;
+
+import java.time.Instant;
+import org.iqkv.boutique.domain.IdempotencyKey;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the IdempotencyKey entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface IdempotencyKeyRepository extends ReactiveCrudRepository<IdempotencyKey, String> {
+    /**
+     * Take the key to process its first request, unless another node holds it or already recorded its response.
+     * Expired keys are taken over.
+     *
+     * @return {@code 1} if the key was taken, {@code 0} otherwise.
+     */
+    @Modifying
+    @Query(
+        "INSERT INTO idempotency_key (id, request_hash, expires_at) VALUES (:id, :requestHash, :lockedUntil)" +
+        " ON CONFLICT (id) DO UPDATE SET request_hash = EXCLUDED.request_hash, response_status = NULL, response_headers = NULL," +
+        " response_body = NULL, expires_at = EXCLUDED.expires_at WHERE idempotency_key.expires_at < :now"
+    )
+    Mono<Long> acquire(String id, String requestHash, Instant lockedUntil, Instant now);
+
+    @Modifying
+    @Query(
+        "UPDATE idempotency_key SET response_status = :status, response_headers = :headers, response_body = :body," +
+        " expires_at = :expiresAt WHERE id = :id"
+    )
+    Mono<Long> complete(String id, Integer status, String headers, byte[] body, Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM idempotency_key WHERE expires_at < :now")
+    Mono<Long> deleteExpired(Instant now);
+}
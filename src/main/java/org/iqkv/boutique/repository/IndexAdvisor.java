@@ -0,0 +1,238 @@
+package org.iqkv.boutique.repository;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cross-check of the predicates of the statements run by the repositories against the indexes of the database: a column
+ * compared in a {@code WHERE} or {@code ON} clause which is not the leading column of an index of its table is reported,
+ * as it is read by a sequential scan.
+ * <p>
+ * The statements are the {@link Query} of the repositories, and those built with the {@code *SqlHelper} classes that
+ * were tracked by {@link SqlStatistics} since the start or the last reset of the statistics. They are parsed by
+ * patterns, not by a SQL parser: the columns of the subqueries are resolved against the tables of the whole statement,
+ * and a column without alias only when the statement reads a single table.
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final String INDEXES_QUERY =
+        "SELECT t.tablename, i.indexdef FROM pg_tables t" +
+        " LEFT JOIN pg_indexes i ON i.schemaname = t.schemaname AND i.tablename = t.tablename" +
+        " WHERE t.schemaname = current_schema()";
+
+    private static final Pattern TABLE = Pattern.compile(
+        "\\b(?:from|join|into|(?<!for |do )update)\\s+(\\w+)(?:\\s+(?:as\\s+)?(\\w+))?"
+    );
+
+    // Not the ON of an ON CONFLICT, whose columns are those of a unique index
+    private static final Pattern PREDICATE_START = Pattern.compile("\\bwhere\\b|\\bon\\b(?! conflict)");
+
+    private static final Pattern PREDICATE_END = Pattern.compile(
+        "\\b(?:order by|group by|having|limit|offset|returning|for update|union|left|right|inner|full|cross|join|where|on)\\b"
+    );
+
+    private static final Pattern QUALIFIED_COLUMN = Pattern.compile("\\b(\\w+)\\.(\\w+)\\b");
+
+    private static final Pattern UNQUALIFIED_COLUMN = Pattern.compile(
+        "(?<![.\\w:$])([a-z_]\\w*)\\s*(?:=|<>|!=|<=|>=|<|>|\\bin\\b|\\bis\\b|\\blike\\b|\\bbetween\\b)"
+    );
+
+    private static final Pattern INDEX_COLUMNS = Pattern.compile("\\busing\\s+\\w+\\s+\\((.*)\\)");
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "where",
+        "on",
+        "left",
+        "right",
+        "inner",
+        "outer",
+        "full",
+        "cross",
+        "join",
+        "set",
+        "order",
+        "group",
+        "having",
+        "limit",
+        "offset",
+        "returning",
+        "for",
+        "using",
+        "values",
+        "union",
+        "and",
+        "or",
+        "not",
+        "null",
+        "true",
+        "false",
+        "any",
+        "all",
+        "exists",
+        "select"
+    );
+
+    private final DatabaseClient db;
+
+    private final SqlStatistics sqlStatistics;
+
+    public IndexAdvisor(R2dbcEntityTemplate template, SqlStatistics sqlStatistics) {
+        this.db = template.getDatabaseClient();
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    /**
+     * Returns the predicates of the statements of the repositories which are not served by an index.
+     *
+     * @param repositoryInterfaces the repositories, whose {@link Query} are checked.
+     * @return the unindexed predicates, by table and column.
+     */
+    public Mono<List<UnindexedPredicate>> advise(Collection<Class<?>> repositoryInterfaces) {
+        Set<String> statements = new LinkedHashSet<>();
+        for (Class<?> repositoryInterface : repositoryInterfaces) {
+            for (Method method : repositoryInterface.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    statements.add(query.value());
+                }
+            }
+        }
+        for (SqlStatistics.StatementStatistics statistics : sqlStatistics.getStatistics()) {
+            statements.add(statistics.sql());
+        }
+        return db
+            .sql(INDEXES_QUERY)
+            .map((row, metadata) -> {
+                String indexdef = row.get("indexdef", String.class);
+                return Map.entry(row.get("tablename", String.class), indexdef == null ? "" : leadingColumn(indexdef));
+            })
+            .all()
+            .collectMultimap(Map.Entry::getKey, Map.Entry::getValue)
+            .map(leadingColumns -> unindexed(statements, leadingColumns));
+    }
+
+    /**
+     * Returns the predicates of statements which are not served by an index.
+     *
+     * @param statements the statements.
+     * @param leadingColumns the leading columns of the indexes, by table; a table without index has an empty column.
+     * @return the unindexed predicates, by table and column.
+     */
+    static List<UnindexedPredicate> unindexed(Collection<String> statements, Map<String, Collection<String>> leadingColumns) {
+        Map<ColumnReference, Set<String>> unindexed = new TreeMap<>();
+        for (String statement : statements) {
+            for (ColumnReference column : predicateColumns(statement)) {
+                Collection<String> indexed = leadingColumns.get(column.table());
+                if (indexed != null && !indexed.contains(column.column())) {
+                    unindexed.computeIfAbsent(column, key -> new LinkedHashSet<>()).add(statement);
+                }
+            }
+        }
+        List<UnindexedPredicate> predicates = new ArrayList<>(unindexed.size());
+        unindexed.forEach((column, columnStatements) ->
+            predicates.add(new UnindexedPredicate(column.table(), column.column(), List.copyOf(columnStatements)))
+        );
+        return predicates;
+    }
+
+    /**
+     * Returns the columns compared in the {@code WHERE} and {@code ON} clauses of a statement.
+     *
+     * @param statement the statement.
+     * @return the columns, with their table.
+     */
+    static Set<ColumnReference> predicateColumns(String statement) {
+        String sql = statement.replace("\"", "").replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        Map<String, String> tables = new HashMap<>();
+        Set<String> tableNames = new HashSet<>();
+        Matcher table = TABLE.matcher(sql);
+        while (table.find()) {
+            if (KEYWORDS.contains(table.group(1))) {
+                continue;
+            }
+            tableNames.add(table.group(1));
+            tables.put(table.group(1), table.group(1));
+            String alias = table.group(2);
+            if (alias != null && !KEYWORDS.contains(alias)) {
+                tables.put(alias, table.group(1));
+            }
+        }
+        Set<ColumnReference> columns = new LinkedHashSet<>();
+        Matcher start = PREDICATE_START.matcher(sql);
+        while (start.find()) {
+            Matcher end = PREDICATE_END.matcher(sql);
+            String predicate = end.find(start.end()) ? sql.substring(start.end(), end.start()) : sql.substring(start.end());
+            Matcher qualified = QUALIFIED_COLUMN.matcher(predicate);
+            while (qualified.find()) {
+                String tableName = tables.get(qualified.group(1));
+                if (tableName != null) {
+                    columns.add(new ColumnReference(tableName, qualified.group(2)));
+                }
+            }
+            if (tableNames.size() == 1) {
+                Matcher unqualified = UNQUALIFIED_COLUMN.matcher(predicate);
+                while (unqualified.find()) {
+                    if (!KEYWORDS.contains(unqualified.group(1))) {
+                        columns.add(new ColumnReference(tableNames.iterator().next(), unqualified.group(1)));
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the leading column of an index.
+     *
+     * @param indexdef the definition of the index, as in {@code pg_indexes}.
+     * @return the leading column, or an empty string for an expression.
+     */
+    static String leadingColumn(String indexdef) {
+        Matcher columns = INDEX_COLUMNS.matcher(indexdef.replace("\"", "").toLowerCase(Locale.ROOT));
+        if (!columns.find()) {
+            return "";
+        }
+        String leading = columns.group(1).split(",")[0].trim().split(" ")[0];
+        return leading.matches("\\w+") ? leading : "";
+    }
+
+    /**
+     * A column of a table.
+     *
+     * @param table the table.
+     * @param column the column.
+     */
+    record ColumnReference(String table, String column) implements Comparable<ColumnReference> {
+        @Override
+        public int compareTo(ColumnReference other) {
+            int byTable = table.compareTo(other.table);
+            return byTable != 0 ? byTable : column.compareTo(other.column);
+        }
+    }
+
+    /**
+     * A column compared by statements, which is not the leading column of an index.
+     *
+     * @param table the table.
+     * @param column the column.
+     * @param statements the statements comparing the column.
+     */
+    public record UnindexedPredicate(String table, String column, List<String> statements) {}
+}
@@ -0,0 +1,174 @@
+package org.iqkv.boutique.repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+/**
+ * Monthly range partitions of the tables partitioned by date, named {@code <table>_pYYYYMM}.
+ * <p>
+ * The partitions of a month are created in a single transaction, and archived one statement per transaction, each
+ * step being checked beforehand or failing without effect, so that the partitions can be maintained by several nodes
+ * at once.
+ */
+@Component
+public class PartitionManager {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final Pattern PARTITION_SUFFIX = Pattern.compile("_p(\\d{6})$");
+
+    private static final String PARTITIONS_QUERY =
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass($1)";
+
+    private static final String EXISTS_QUERY = "SELECT to_regclass($1) IS NOT NULL";
+
+    // The partition column, and the default partition, of a table partitioned by range on a single column
+    private static final String PARTITIONING_QUERY =
+        "SELECT a.attname, d.relname FROM pg_partitioned_table p " +
+        "JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0] " +
+        "JOIN pg_class d ON d.oid = p.partdefid WHERE p.partrelid = to_regclass($1)";
+
+    private static final String FOREIGN_KEYS_QUERY = "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass($1) AND contype = 'f'";
+
+    private final DatabaseClient db;
+
+    public PartitionManager(R2dbcEntityTemplate template) {
+        this.db = template.getDatabaseClient();
+    }
+
+    /**
+     * Create the partitions of a month of several tables, for those which do not have it yet.
+     * <p>
+     * The rows of the month which were stored in the default partition of a table, while its partition did not exist,
+     * are moved into the new partition before it is attached, as PostgreSQL refuses to attach a partition whose rows
+     * are in the default one. The rows referencing the others are moved first and their tables attached last, so that
+     * the foreign keys between the tables hold along the moves.
+     *
+     * @param month the month.
+     * @param tables the partitioned tables, the referenced ones first.
+     * @return a {@link Mono} to signal the creation.
+     */
+    @Transactional
+    public Mono<Void> createPartitions(YearMonth month, List<String> tables) {
+        return Flux.fromIterable(tables)
+            .filterWhen(table -> partitionExists(partitionName(table, month)).map(exists -> !exists))
+            .collectList()
+            .flatMap(created -> {
+                List<String> moved = new ArrayList<>(created);
+                Collections.reverse(moved);
+                return Flux.fromIterable(moved)
+                    .concatMap(table -> createDetachedPartition(table, month))
+                    .thenMany(Flux.fromIterable(created))
+                    .concatMap(table -> attachPartition(table, month))
+                    .then();
+            });
+    }
+
+    private Mono<Boolean> partitionExists(String partition) {
+        return db.sql(EXISTS_QUERY).bind(0, partition).map((row, metadata) -> row.get(0, Boolean.class)).one();
+    }
+
+    private Mono<Void> createDetachedPartition(String table, YearMonth month) {
+        String partition = quote(partitionName(table, month));
+        Mono<Void> creation = db.sql("CREATE TABLE " + partition + " (LIKE " + quote(table) + " INCLUDING DEFAULTS)").then();
+        Mono<Void> move = db
+            .sql(PARTITIONING_QUERY)
+            .bind(0, table)
+            .map((row, metadata) -> Tuples.of(row.get(0, String.class), row.get(1, String.class)))
+            .one()
+            .flatMap(partitioning ->
+                db
+                    .sql(
+                        "WITH moved AS (DELETE FROM " +
+                        quote(partitioning.getT2()) +
+                        " WHERE " +
+                        quote(partitioning.getT1()) +
+                        " >= '" +
+                        month.atDay(1) +
+                        "' AND " +
+                        quote(partitioning.getT1()) +
+                        " < '" +
+                        month.plusMonths(1).atDay(1) +
+                        "' RETURNING *) INSERT INTO " +
+                        partition +
+                        " SELECT * FROM moved"
+                    )
+                    .then()
+            );
+        return creation.then(move);
+    }
+
+    private Mono<Void> attachPartition(String table, YearMonth month) {
+        String sql =
+            "ALTER TABLE " +
+            quote(table) +
+            " ATTACH PARTITION " +
+            quote(partitionName(table, month)) +
+            " FOR VALUES FROM ('" +
+            month.atDay(1) +
+            "') TO ('" +
+            month.plusMonths(1).atDay(1) +
+            "')";
+        return db.sql(sql).then();
+    }
+
+    /**
+     * Returns the months of the monthly partitions of a table, without its default partition.
+     *
+     * @param table the partitioned table.
+     * @return the months.
+     */
+    public Flux<YearMonth> findPartitions(String table) {
+        return db
+            .sql(PARTITIONS_QUERY)
+            .bind(0, table)
+            .map((row, metadata) -> row.get(0, String.class))
+            .all()
+            .mapNotNull(PartitionManager::partitionMonth);
+    }
+
+    /**
+     * Detach the partition of a month and move it to an archive schema. Its foreign keys are dropped, so that its rows
+     * no longer hold the rows of the other tables, nor the detachment of the partitions they reference.
+     *
+     * @param table the partitioned table.
+     * @param month the month.
+     * @param schema the archive schema.
+     * @return a {@link Mono} to signal the archival.
+     */
+    public Mono<Void> archivePartition(String table, YearMonth month, String schema) {
+        String partition = partitionName(table, month);
+        return db
+            .sql("ALTER TABLE " + quote(table) + " DETACH PARTITION " + quote(partition))
+            .then()
+            .thenMany(db.sql(FOREIGN_KEYS_QUERY).bind(0, partition).map((row, metadata) -> row.get(0, String.class)).all())
+            .concatMap(foreignKey -> db.sql("ALTER TABLE " + quote(partition) + " DROP CONSTRAINT " + quote(foreignKey)).then())
+            .then(db.sql("CREATE SCHEMA IF NOT EXISTS " + quote(schema)).then())
+            .then(db.sql("ALTER TABLE " + quote(partition) + " SET SCHEMA " + quote(schema)).then());
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+
+    static YearMonth partitionMonth(String partition) {
+        Matcher suffix = PARTITION_SUFFIX.matcher(partition);
+        return suffix.find() ? YearMonth.parse(suffix.group(1), SUFFIX) : null;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -3,6 +3,7 @@ package org.iqkv.boutique.repository;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.List;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
 import org.iqkv.boutique.domain.ProductCategory;
 import org.iqkv.boutique.repository.rowmapper.ProductCategoryRowMapper;
 import org.springframework.data.domain.Pageable;
@@ -34,6 +35,8 @@ class ProductCategoryRepositoryInternalImpl
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final ReactiveObserver reactiveObserver;
+    private final SqlStatistics sqlStatistics;
 
     private final ProductCategoryRowMapper productcategoryMapper;
 
@@ -44,7 +47,9 @@ class ProductCategoryRepositoryInternalImpl
         EntityManager entityManager,
         ProductCategoryRowMapper productcategoryMapper,
         R2dbcEntityOperations entityOperations,
-        R2dbcConverter converter
+        R2dbcConverter converter,
+        ReactiveObserver reactiveObserver,
+        SqlStatistics sqlStatistics
     ) {
         super(
             new MappingRelationalEntityInformation(converter.getMappingContext().getRequiredPersistentEntity(ProductCategory.class)),
@@ -54,6 +59,8 @@ class ProductCategoryRepositoryInternalImpl
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.reactiveObserver = reactiveObserver;
+        this.sqlStatistics = sqlStatistics;
         this.productcategoryMapper = productcategoryMapper;
     }
 
@@ -67,7 +74,7 @@ class ProductCategoryRepositoryInternalImpl
         SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
         String select = entityManager.createSelect(selectFrom, ProductCategory.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        return reactiveObserver.observe(sqlStatistics.track(select, db.sql(select).map(this::process)), "ProductCategory");
     }
 
     @Override
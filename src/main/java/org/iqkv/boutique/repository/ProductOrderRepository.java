@@ -29,7 +29,7 @@ public interface ProductOrderRepository extends ReactiveCrudRepository<ProductOr
     @Query("SELECT * FROM product_order entity WHERE entity.product_id IS NULL")
     Flux<ProductOrder> findAllWhereProductIsNull();
 
-    @Query("SELECT * FROM product_order entity WHERE entity.cart_id = :id")
+    @Override
     Flux<ProductOrder> findByCart(Long id);
 
     @Query("SELECT * FROM product_order entity WHERE entity.cart_id IS NULL")
@@ -56,6 +56,8 @@ interface ProductOrderRepositoryInternal {
     Flux<ProductOrder> findAll();
 
     Mono<ProductOrder> findById(Long id);
+
+    Flux<ProductOrder> findByCart(Long id);
     // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
     // Flux<ProductOrder> findAllBy(Pageable pageable, Criteria criteria);
 
@@ -2,8 +2,21 @@ package org.iqkv.boutique.repository;
 
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.domain.Product;
 import org.iqkv.boutique.domain.ProductOrder;
+import org.iqkv.boutique.domain.ShoppingCart;
 import org.iqkv.boutique.repository.rowmapper.ProductOrderRowMapper;
 import org.iqkv.boutique.repository.rowmapper.ProductRowMapper;
 import org.iqkv.boutique.repository.rowmapper.ShoppingCartRowMapper;
@@ -17,7 +30,9 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
@@ -35,11 +50,24 @@ class ProductOrderRepositoryInternalImpl extends SimpleR2dbcRepository<ProductOr
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final ReactiveObserver reactiveObserver;
+    private final SqlStatistics sqlStatistics;
+    private final BatchLoader<Long, ProductOrder> byCart;
+    private final boolean batchLoading;
 
     private final ProductRowMapper productMapper;
     private final ShoppingCartRowMapper shoppingcartMapper;
     private final ProductOrderRowMapper productorderMapper;
 
+    private static final String CART_PLACED_DATE_QUERY = "SELECT placed_date FROM shopping_cart WHERE id = $1";
+
+    /**
+     * Carts by (id, placed_date) pairs, the placed date pruning the partitions of shopping_cart.
+     */
+    private static final Condition CARTS_BY_ID_AND_PLACED_DATE = Conditions.just(
+        "(cart.id, cart.placed_date) IN (SELECT * FROM unnest($1::bigint[], $2::timestamp[]))"
+    );
+
     private static final Table entityTable = Table.aliased("product_order", EntityManager.ENTITY_ALIAS);
     private static final Table productTable = Table.aliased("product", "product");
     private static final Table cartTable = Table.aliased("shopping_cart", "cart");
@@ -51,7 +79,10 @@ class ProductOrderRepositoryInternalImpl extends SimpleR2dbcRepository<ProductOr
         ShoppingCartRowMapper shoppingcartMapper,
         ProductOrderRowMapper productorderMapper,
         R2dbcEntityOperations entityOperations,
-        R2dbcConverter converter
+        R2dbcConverter converter,
+        ReactiveObserver reactiveObserver,
+        SqlStatistics sqlStatistics,
+        ApplicationProperties applicationProperties
     ) {
         super(
             new MappingRelationalEntityInformation(converter.getMappingContext().getRequiredPersistentEntity(ProductOrder.class)),
@@ -61,13 +92,26 @@ class ProductOrderRepositoryInternalImpl extends SimpleR2dbcRepository<ProductOr
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.reactiveObserver = reactiveObserver;
+        this.sqlStatistics = sqlStatistics;
+        this.batchLoading = applicationProperties.getDatabase().isBatchLoading();
         this.productMapper = productMapper;
         this.shoppingcartMapper = shoppingcartMapper;
         this.productorderMapper = productorderMapper;
+        ApplicationProperties.Database database = applicationProperties.getDatabase();
+        this.byCart = new BatchLoader<>(
+            this::findByCartIn,
+            ProductOrder::getCartId,
+            database.getBatchWindow(),
+            database.isBatchLoading() ? database.getMaxBatchSize() : 1
+        );
     }
 
     @Override
     public Flux<ProductOrder> findAllBy(Pageable pageable) {
+        if (batchLoading) {
+            return loadRelationships(createEntityQuery(pageable, null).all());
+        }
         return createQuery(pageable, null).all();
     }
 
@@ -83,10 +127,110 @@ class ProductOrderRepositoryInternalImpl extends SimpleR2dbcRepository<ProductOr
             .equals(Column.create("id", productTable))
             .leftOuterJoin(cartTable)
             .on(Column.create("cart_id", entityTable))
-            .equals(Column.create("id", cartTable));
+            .equals(Column.create("id", cartTable))
+            // Reads the cart from the partition of the order only
+            .and(Column.create("cart_placed_date", entityTable))
+            .equals(Column.create("placed_date", cartTable));
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
         String select = entityManager.createSelect(selectFrom, ProductOrder.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        return reactiveObserver.observe(sqlStatistics.track(select, db.sql(select).map(this::process)), "ProductOrder");
+    }
+
+    /**
+     * Query of the orders only, their relationships being loaded by {@link #loadRelationships(Flux)}.
+     */
+    RowsFetchSpec<ProductOrder> createEntityQuery(Pageable pageable, Condition whereClause) {
+        List<Expression> columns = ProductOrderSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        String select = entityManager.createSelect(selectFrom, ProductOrder.class, pageable, whereClause);
+        RowsFetchSpec<ProductOrder> query = db.sql(select).map((row, metadata) -> productorderMapper.apply(row, "e"));
+        return reactiveObserver.observe(sqlStatistics.track(select, query), "ProductOrder");
+    }
+
+    /**
+     * Load the products and the carts of the orders with one query each, run in parallel, instead of joining them to
+     * each order: a product or a cart shared by several orders is then fetched once.
+     */
+    Flux<ProductOrder> loadRelationships(Flux<ProductOrder> orders) {
+        return orders
+            .collectList()
+            .flatMapMany(page -> {
+                Mono<Map<Long, Product>> products = findAllById(page.stream().map(ProductOrder::getProductId));
+                Mono<Map<Long, ShoppingCart>> carts = findAllCartsById(page);
+                return Mono.zip(products, carts).flatMapIterable(relationships -> {
+                    for (ProductOrder order : page) {
+                        if (order.getProductId() != null) {
+                            order.setProduct(relationships.getT1().get(order.getProductId()));
+                        }
+                        if (order.getCartId() != null) {
+                            order.setCart(relationships.getT2().get(order.getCartId()));
+                        }
+                    }
+                    return page;
+                });
+            });
+    }
+
+    private Mono<Map<Long, Product>> findAllById(Stream<Long> ids) {
+        Long[] distinctIds = ids.filter(Objects::nonNull).distinct().toArray(Long[]::new);
+        if (distinctIds.length == 0) {
+            return Mono.just(Map.of());
+        }
+        Condition whereClause = Conditions.isEqual(Column.create("id", productTable), Expressions.just("ANY($1)"));
+        return findAll(
+            productTable,
+            ProductSqlHelper.getColumns(productTable, "product"),
+            whereClause,
+            new Object[] { distinctIds },
+            row -> productMapper.apply(row, "product"),
+            Product::getId,
+            Product.class
+        );
+    }
+
+    private Mono<Map<Long, ShoppingCart>> findAllCartsById(List<ProductOrder> orders) {
+        Map<Long, Instant> placedDates = new LinkedHashMap<>();
+        for (ProductOrder order : orders) {
+            if (order.getCartId() != null && order.getCartPlacedDate() != null) {
+                placedDates.putIfAbsent(order.getCartId(), order.getCartPlacedDate());
+            }
+        }
+        if (placedDates.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        // Instants are stored as UTC timestamps
+        String[] timestamps = placedDates
+            .values()
+            .stream()
+            .map(placedDate -> LocalDateTime.ofInstant(placedDate, ZoneOffset.UTC).toString())
+            .toArray(String[]::new);
+        return findAll(
+            cartTable,
+            ShoppingCartSqlHelper.getColumns(cartTable, "cart"),
+            CARTS_BY_ID_AND_PLACED_DATE,
+            new Object[] { placedDates.keySet().toArray(Long[]::new), timestamps },
+            row -> shoppingcartMapper.apply(row, "cart"),
+            ShoppingCart::getId,
+            ShoppingCart.class
+        );
+    }
+
+    private <T> Mono<Map<Long, T>> findAll(
+        Table table,
+        List<Expression> columns,
+        Condition whereClause,
+        Object[] parameters,
+        Function<Row, T> mapper,
+        Function<T, Long> idMapper,
+        Class<T> entityType
+    ) {
+        String select = entityManager.createSelect(Select.builder().select(columns).from(table), entityType, null, whereClause);
+        DatabaseClient.GenericExecuteSpec spec = db.sql(select);
+        for (int i = 0; i < parameters.length; i++) {
+            spec = spec.bind(i, parameters[i]);
+        }
+        RowsFetchSpec<T> query = spec.map((row, metadata) -> mapper.apply(row));
+        return reactiveObserver.observe(sqlStatistics.track(select, query), entityType.getSimpleName()).all().collectMap(idMapper);
     }
 
     @Override
@@ -100,6 +244,23 @@ class ProductOrderRepositoryInternalImpl extends SimpleR2dbcRepository<ProductOr
         return createQuery(null, whereClause).one();
     }
 
+    @Override
+    public Flux<ProductOrder> findByCart(Long id) {
+        return byCart.load(id);
+    }
+
+    private Flux<ProductOrder> findByCartIn(Collection<Long> ids) {
+        List<Expression> columns = ProductOrderSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        Condition whereClause = Conditions.isEqual(entityTable.column("cart_id"), Expressions.just("ANY($1)"));
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        String select = entityManager.createSelect(selectFrom, ProductOrder.class, null, whereClause);
+        RowsFetchSpec<ProductOrder> query = db
+            .sql(select)
+            .bind(0, ids.toArray(Long[]::new))
+            .map((row, metadata) -> productorderMapper.apply(row, "e"));
+        return reactiveObserver.observe(sqlStatistics.track(select, query), "ProductOrder").all();
+    }
+
     @Override
     public Mono<ProductOrder> findOneWithEagerRelationships(Long id) {
         return findById(id);
@@ -122,8 +283,24 @@ class ProductOrderRepositoryInternalImpl extends SimpleR2dbcRepository<ProductOr
         return entity;
     }
 
+    /**
+     * Save an order in the partition of its cart, whose placed date is read from the database rather than trusted from
+     * the request.
+     */
     @Override
     public <S extends ProductOrder> Mono<S> save(S entity) {
-        return super.save(entity);
+        if (entity.getCartId() == null) {
+            return super.save(entity);
+        }
+        RowsFetchSpec<LocalDateTime> query = db
+            .sql(CART_PLACED_DATE_QUERY)
+            .bind(0, entity.getCartId())
+            .map((row, metadata) -> row.get(0, LocalDateTime.class));
+        return reactiveObserver
+            .observe(sqlStatistics.track(CART_PLACED_DATE_QUERY, query), "ProductOrder")
+            .one()
+            // Instants are stored as UTC timestamps
+            .doOnNext(placedDate -> entity.setCartPlacedDate(placedDate.toInstant(ZoneOffset.UTC)))
+            .then(Mono.defer(() -> super.save(entity)));
     }
 }
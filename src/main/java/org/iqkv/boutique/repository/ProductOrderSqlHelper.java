@@ -16,6 +16,7 @@ public class ProductOrderSqlHelper {
 
         columns.add(Column.aliased("product_id", table, columnPrefix + "_product_id"));
         columns.add(Column.aliased("cart_id", table, columnPrefix + "_cart_id"));
+        columns.add(Column.aliased("cart_placed_date", table, columnPrefix + "_cart_placed_date"));
         return columns;
     }
 }
@@ -2,6 +2,7 @@ package org.iqkv.boutique.repository;
 
 import org.iqkv.boutique.domain.Product;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -25,12 +26,109 @@ public interface ProductRepository extends ReactiveCrudRepository<Product, Long>
     @Override
     Flux<Product> findAllWithEagerRelationships(Pageable page);
 
-    @Query("SELECT * FROM product entity WHERE entity.product_category_id = :id")
+    @Override
     Flux<Product> findByProductCategory(Long id);
 
     @Query("SELECT * FROM product entity WHERE entity.product_category_id IS NULL")
     Flux<Product> findAllWhereProductCategoryIsNull();
 
+    /**
+     * Take {@code quantity} items from the stock held on the product row, in a single conditional statement.
+     *
+     * @return the number of updated rows: {@code 0} when the product has not enough stock on its own row.
+     */
+    @Modifying
+    @Query("UPDATE product SET stock = stock - :quantity WHERE id = :id AND stock >= :quantity")
+    Mono<Long> decrementStock(Long id, Integer quantity);
+
+    @Modifying
+    @Query("UPDATE product SET stock = stock + :quantity WHERE id = :id")
+    Mono<Long> incrementStock(Long id, Integer quantity);
+
+    /**
+     * Set the stock held on the product row to zero, returning what it held before.
+     */
+    @Query(
+        "UPDATE product p SET stock = 0 FROM (SELECT id, stock FROM product WHERE id = :id FOR UPDATE) previous" +
+        " WHERE p.id = previous.id RETURNING previous.stock"
+    )
+    Mono<Integer> drainStock(Long id);
+
+    /**
+     * Take {@code quantity} items from one of the product stripes, starting the search at stripe {@code offset}.
+     * Stripes currently locked by a concurrent reservation are skipped instead of waited on.
+     *
+     * @return the stripe the items were taken from, or empty if no unlocked stripe has enough stock.
+     */
+    @Query(
+        "UPDATE product_stock_stripe SET quantity = quantity - :quantity WHERE id = (" +
+        "SELECT id FROM product_stock_stripe WHERE product_id = :id AND quantity >= :quantity" +
+        " ORDER BY stripe < :offset, stripe LIMIT 1 FOR UPDATE SKIP LOCKED) AND quantity >= :quantity RETURNING stripe"
+    )
+    Mono<Integer> decrementStockStripeSkipLocked(Long id, Integer quantity, Integer offset);
+
+    /**
+     * Same as {@link #decrementStockStripeSkipLocked(Long, Integer, Integer)}, but waits on locked stripes.
+     */
+    @Query(
+        "UPDATE product_stock_stripe SET quantity = quantity - :quantity WHERE id = (" +
+        "SELECT id FROM product_stock_stripe WHERE product_id = :id AND quantity >= :quantity" +
+        " ORDER BY stripe < :offset, stripe LIMIT 1 FOR UPDATE) AND quantity >= :quantity RETURNING stripe"
+    )
+    Mono<Integer> decrementStockStripe(Long id, Integer quantity, Integer offset);
+
+    /**
+     * Take {@code quantity} items from the product row and all of its stripes together, for reservations that none of
+     * them can serve on its own. All the counters of the product are locked, and the items are taken from the product
+     * row first, then from the stripes in order, only if they hold enough in total.
+     *
+     * @return the number of updated product rows: {@code 0} when the product has not enough stock in total.
+     */
+    @Modifying
+    @Query(
+        "WITH product_row AS (SELECT stock FROM product WHERE id = :id FOR UPDATE)," +
+        " stripes AS (SELECT id, stripe, quantity FROM product_stock_stripe WHERE product_id = :id FOR UPDATE)," +
+        " counters AS (SELECT CAST(NULL AS bigint) AS id, -1 AS stripe, stock AS quantity FROM product_row" +
+        " UNION ALL SELECT id, stripe, quantity FROM stripes)," +
+        " takes AS (SELECT id, LEAST(quantity, :quantity - SUM(quantity) OVER (ORDER BY stripe) + quantity) AS taken," +
+        " SUM(quantity) OVER () AS total FROM counters)," +
+        " taken_from_stripes AS (UPDATE product_stock_stripe s SET quantity = s.quantity - t.taken FROM takes t" +
+        " WHERE s.id = t.id AND t.taken > 0 AND t.total >= :quantity)" +
+        " UPDATE product p SET stock = p.stock - GREATEST(t.taken, 0) FROM takes t" +
+        " WHERE p.id = :id AND t.id IS NULL AND t.total >= :quantity"
+    )
+    Mono<Long> decrementStockAcrossCounters(Long id, Integer quantity);
+
+    @Modifying
+    @Query("UPDATE product_stock_stripe SET quantity = quantity + :quantity WHERE product_id = :id AND stripe = :stripe")
+    Mono<Long> incrementStockStripe(Long id, Integer stripe, Integer quantity);
+
+    /**
+     * Delete all the stripes of the product, returning the quantity each one held.
+     */
+    @Query("DELETE FROM product_stock_stripe WHERE product_id = :id RETURNING quantity")
+    Flux<Integer> drainStockStripes(Long id);
+
+    /**
+     * Spread {@code stock} items evenly over {@code stripes} new stripes of the product.
+     */
+    @Modifying
+    @Query(
+        "INSERT INTO product_stock_stripe (product_id, stripe, quantity)" +
+        " SELECT :id, s, :stock / :stripes + CASE WHEN s < :stock % :stripes THEN 1 ELSE 0 END" +
+        " FROM generate_series(0, :stripes - 1) s"
+    )
+    Mono<Long> createStockStripes(Long id, Integer stripes, Integer stock);
+
+    /**
+     * Stock available for reservation: the product row plus all of its stripes.
+     */
+    @Query(
+        "SELECT CAST(p.stock + COALESCE((SELECT SUM(s.quantity) FROM product_stock_stripe s WHERE s.product_id = p.id), 0) AS integer)" +
+        " FROM product p WHERE p.id = :id"
+    )
+    Mono<Integer> findAvailableStock(Long id);
+
     @Override
     <S extends Product> Mono<S> save(S entity);
 
@@ -52,6 +150,8 @@ interface ProductRepositoryInternal {
     Flux<Product> findAll();
 
     Mono<Product> findById(Long id);
+
+    Flux<Product> findByProductCategory(Long id);
     // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
     // Flux<Product> findAllBy(Pageable pageable, Criteria criteria);
 
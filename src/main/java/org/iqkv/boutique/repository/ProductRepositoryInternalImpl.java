@@ -2,7 +2,10 @@ package org.iqkv.boutique.repository;
 
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.util.Collection;
 import java.util.List;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
+import org.iqkv.boutique.config.ApplicationProperties;
 import org.iqkv.boutique.domain.Product;
 import org.iqkv.boutique.repository.rowmapper.ProductCategoryRowMapper;
 import org.iqkv.boutique.repository.rowmapper.ProductRowMapper;
@@ -16,7 +19,9 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
@@ -34,6 +39,9 @@ class ProductRepositoryInternalImpl extends SimpleR2dbcRepository<Product, Long>
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final ReactiveObserver reactiveObserver;
+    private final SqlStatistics sqlStatistics;
+    private final BatchLoader<Long, Product> byProductCategory;
 
     private final ProductCategoryRowMapper productcategoryMapper;
     private final ProductRowMapper productMapper;
@@ -47,7 +55,10 @@ class ProductRepositoryInternalImpl extends SimpleR2dbcRepository<Product, Long>
         ProductCategoryRowMapper productcategoryMapper,
         ProductRowMapper productMapper,
         R2dbcEntityOperations entityOperations,
-        R2dbcConverter converter
+        R2dbcConverter converter,
+        ReactiveObserver reactiveObserver,
+        SqlStatistics sqlStatistics,
+        ApplicationProperties applicationProperties
     ) {
         super(
             new MappingRelationalEntityInformation(converter.getMappingContext().getRequiredPersistentEntity(Product.class)),
@@ -57,8 +68,17 @@ class ProductRepositoryInternalImpl extends SimpleR2dbcRepository<Product, Long>
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.reactiveObserver = reactiveObserver;
+        this.sqlStatistics = sqlStatistics;
         this.productcategoryMapper = productcategoryMapper;
         this.productMapper = productMapper;
+        ApplicationProperties.Database database = applicationProperties.getDatabase();
+        this.byProductCategory = new BatchLoader<>(
+            this::findByProductCategoryIn,
+            Product::getProductCategoryId,
+            database.getBatchWindow(),
+            database.isBatchLoading() ? database.getMaxBatchSize() : 1
+        );
     }
 
     @Override
@@ -77,7 +97,7 @@ class ProductRepositoryInternalImpl extends SimpleR2dbcRepository<Product, Long>
             .equals(Column.create("id", productCategoryTable));
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
         String select = entityManager.createSelect(selectFrom, Product.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        return reactiveObserver.observe(sqlStatistics.track(select, db.sql(select).map(this::process)), "Product");
     }
 
     @Override
@@ -91,6 +111,23 @@ class ProductRepositoryInternalImpl extends SimpleR2dbcRepository<Product, Long>
         return createQuery(null, whereClause).one();
     }
 
+    @Override
+    public Flux<Product> findByProductCategory(Long id) {
+        return byProductCategory.load(id);
+    }
+
+    private Flux<Product> findByProductCategoryIn(Collection<Long> ids) {
+        List<Expression> columns = ProductSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        Condition whereClause = Conditions.isEqual(entityTable.column("product_category_id"), Expressions.just("ANY($1)"));
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        String select = entityManager.createSelect(selectFrom, Product.class, null, whereClause);
+        RowsFetchSpec<Product> query = db
+            .sql(select)
+            .bind(0, ids.toArray(Long[]::new))
+            .map((row, metadata) -> productMapper.apply(row, "e"));
+        return reactiveObserver.observe(sqlStatistics.track(select, query), "Product").all();
+    }
+
     @Override
     public Mono<Product> findOneWithEagerRelationships(Long id) {
         return findById(id);
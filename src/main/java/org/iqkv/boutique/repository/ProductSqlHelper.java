@@ -17,6 +17,7 @@ public class ProductSqlHelper {
         columns.add(Column.aliased("product_size", table, columnPrefix + "_product_size"));
         columns.add(Column.aliased("image", table, columnPrefix + "_image"));
         columns.add(Column.aliased("image_content_type", table, columnPrefix + "_image_content_type"));
+        columns.add(Column.aliased("stock", table, columnPrefix + "_stock"));
 
         columns.add(Column.aliased("product_category_id", table, columnPrefix + "_product_category_id"));
         return columns;
@@ -1,5 +1,6 @@
 package org.iqkv.boutique.repository;
 
+import java.time.Instant;
 import org.iqkv.boutique.domain.ShoppingCart;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
@@ -14,7 +15,7 @@ import reactor.core.publisher.Mono;
 @SuppressWarnings("unused")
 @Repository
 public interface ShoppingCartRepository extends ReactiveCrudRepository<ShoppingCart, Long>, ShoppingCartRepositoryInternal {
-    @Query("SELECT * FROM shopping_cart entity WHERE entity.customer_details_id = :id")
+    @Override
     Flux<ShoppingCart> findByCustomerDetails(Long id);
 
     @Query("SELECT * FROM shopping_cart entity WHERE entity.customer_details_id IS NULL")
@@ -41,6 +42,28 @@ interface ShoppingCartRepositoryInternal {
     Flux<ShoppingCart> findAll();
 
     Mono<ShoppingCart> findById(Long id);
+
+    Flux<ShoppingCart> findByCustomerDetails(Long id);
+
+    /**
+     * Returns the cart with its lines and their products, as a JSON document built by the database.
+     *
+     * @param id the id of the cart.
+     * @return the JSON document, or empty if the cart does not exist.
+     */
+    Mono<String> findDetailById(Long id);
+
+    /**
+     * Returns a page of the carts of a customer, most recently placed first, starting after a cart: the page is read
+     * from the {@code (customer_details_id, placed_date, id)} index, whatever its position.
+     *
+     * @param customerDetailsId the id of the customer.
+     * @param placedBefore the placed date of the last cart of the previous page, or {@code null} for the first page.
+     * @param idBefore the id of the last cart of the previous page, or {@code null} for the first page.
+     * @param size the maximum number of carts of the page.
+     * @return the carts.
+     */
+    Flux<ShoppingCart> findByCustomerDetailsBefore(Long customerDetailsId, Instant placedBefore, Long idBefore, int size);
     // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
     // Flux<ShoppingCart> findAllBy(Pageable pageable, Criteria criteria);
 }
@@ -2,11 +2,19 @@ package org.iqkv.boutique.repository;
 
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
+import org.iqkv.boutique.config.ApplicationProperties;
 import org.iqkv.boutique.domain.ShoppingCart;
 import org.iqkv.boutique.repository.rowmapper.CustomerDetailsRowMapper;
 import org.iqkv.boutique.repository.rowmapper.ShoppingCartRowMapper;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
@@ -16,7 +24,9 @@ import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
@@ -34,10 +44,44 @@ class ShoppingCartRepositoryInternalImpl extends SimpleR2dbcRepository<ShoppingC
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final ReactiveObserver reactiveObserver;
+    private final SqlStatistics sqlStatistics;
+    private final BatchLoader<Long, ShoppingCart> byCustomerDetails;
 
     private final CustomerDetailsRowMapper customerdetailsMapper;
     private final ShoppingCartRowMapper shoppingcartMapper;
 
+    /**
+     * The cart with its lines and a summary of their products, without their images, in one statement. Dates are
+     * rendered as UTC instants, like Jackson does. The lines are read from the partition of the cart only.
+     */
+    private static final String DETAIL_QUERY =
+        "SELECT json_build_object(" +
+        "'id', c.id," +
+        " 'placedDate', to_char(c.placed_date, 'YYYY-MM-DD\"T\"HH24:MI:SS') ||" +
+        // The fraction of second in groups of 3 digits, as Instant.toString
+        " CASE WHEN to_char(c.placed_date, 'US') = '000000' THEN ''" +
+        " WHEN right(to_char(c.placed_date, 'US'), 3) = '000' THEN '.' || to_char(c.placed_date, 'MS')" +
+        " ELSE '.' || to_char(c.placed_date, 'US') END || 'Z'," +
+        " 'status', c.status," +
+        " 'totalPrice', c.total_price," +
+        " 'paymentMethod', c.payment_method," +
+        " 'paymentReference', c.payment_reference," +
+        " 'customerDetails', CASE WHEN c.customer_details_id IS NULL THEN NULL ELSE" +
+        " json_build_object('id', c.customer_details_id) END," +
+        " 'lines', COALESCE((" +
+        "SELECT json_agg(json_build_object(" +
+        "'id', o.id," +
+        " 'quantity', o.quantity," +
+        " 'totalPrice', o.total_price," +
+        " 'product', CASE WHEN p.id IS NULL THEN NULL ELSE" +
+        " json_build_object('id', p.id, 'name', p.name, 'price', p.price, 'productSize', p.product_size) END" +
+        ") ORDER BY o.id)" +
+        " FROM product_order o LEFT JOIN product p ON p.id = o.product_id" +
+        " WHERE o.cart_id = c.id AND o.cart_placed_date = c.placed_date" +
+        "), '[]'::json)" +
+        ")::text FROM shopping_cart c WHERE c.id = $1";
+
     private static final Table entityTable = Table.aliased("shopping_cart", EntityManager.ENTITY_ALIAS);
     private static final Table customerDetailsTable = Table.aliased("customer_details", "customerDetails");
 
@@ -47,7 +91,10 @@ class ShoppingCartRepositoryInternalImpl extends SimpleR2dbcRepository<ShoppingC
         CustomerDetailsRowMapper customerdetailsMapper,
         ShoppingCartRowMapper shoppingcartMapper,
         R2dbcEntityOperations entityOperations,
-        R2dbcConverter converter
+        R2dbcConverter converter,
+        ReactiveObserver reactiveObserver,
+        SqlStatistics sqlStatistics,
+        ApplicationProperties applicationProperties
     ) {
         super(
             new MappingRelationalEntityInformation(converter.getMappingContext().getRequiredPersistentEntity(ShoppingCart.class)),
@@ -57,8 +104,17 @@ class ShoppingCartRepositoryInternalImpl extends SimpleR2dbcRepository<ShoppingC
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.reactiveObserver = reactiveObserver;
+        this.sqlStatistics = sqlStatistics;
         this.customerdetailsMapper = customerdetailsMapper;
         this.shoppingcartMapper = shoppingcartMapper;
+        ApplicationProperties.Database database = applicationProperties.getDatabase();
+        this.byCustomerDetails = new BatchLoader<>(
+            this::findByCustomerDetailsIn,
+            ShoppingCart::getCustomerDetailsId,
+            database.getBatchWindow(),
+            database.isBatchLoading() ? database.getMaxBatchSize() : 1
+        );
     }
 
     @Override
@@ -77,7 +133,7 @@ class ShoppingCartRepositoryInternalImpl extends SimpleR2dbcRepository<ShoppingC
             .equals(Column.create("id", customerDetailsTable));
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
         String select = entityManager.createSelect(selectFrom, ShoppingCart.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        return reactiveObserver.observe(sqlStatistics.track(select, db.sql(select).map(this::process)), "ShoppingCart");
     }
 
     @Override
@@ -91,6 +147,48 @@ class ShoppingCartRepositoryInternalImpl extends SimpleR2dbcRepository<ShoppingC
         return createQuery(null, whereClause).one();
     }
 
+    @Override
+    public Flux<ShoppingCart> findByCustomerDetails(Long id) {
+        return byCustomerDetails.load(id);
+    }
+
+    private Flux<ShoppingCart> findByCustomerDetailsIn(Collection<Long> ids) {
+        List<Expression> columns = ShoppingCartSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        Condition whereClause = Conditions.isEqual(entityTable.column("customer_details_id"), Expressions.just("ANY($1)"));
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        String select = entityManager.createSelect(selectFrom, ShoppingCart.class, null, whereClause);
+        RowsFetchSpec<ShoppingCart> query = db
+            .sql(select)
+            .bind(0, ids.toArray(Long[]::new))
+            .map((row, metadata) -> shoppingcartMapper.apply(row, "e"));
+        return reactiveObserver.observe(sqlStatistics.track(select, query), "ShoppingCart").all();
+    }
+
+    @Override
+    public Flux<ShoppingCart> findByCustomerDetailsBefore(Long customerDetailsId, Instant placedBefore, Long idBefore, int size) {
+        List<Expression> columns = ShoppingCartSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        Condition whereClause = Conditions.isEqual(entityTable.column("customer_details_id"), Expressions.just("$1"));
+        if (placedBefore != null) {
+            whereClause = whereClause.and(Conditions.just("(e.placed_date, e.id) < ($2, $3)"));
+        }
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        Pageable page = PageRequest.of(0, size, Sort.by(Sort.Order.desc("placedDate"), Sort.Order.desc("id")));
+        String select = entityManager.createSelect(selectFrom, ShoppingCart.class, page, whereClause);
+        DatabaseClient.GenericExecuteSpec spec = db.sql(select).bind(0, customerDetailsId);
+        if (placedBefore != null) {
+            // Instants are stored as UTC timestamps
+            spec = spec.bind(1, LocalDateTime.ofInstant(placedBefore, ZoneOffset.UTC)).bind(2, idBefore);
+        }
+        RowsFetchSpec<ShoppingCart> query = spec.map((row, metadata) -> shoppingcartMapper.apply(row, "e"));
+        return reactiveObserver.observe(sqlStatistics.track(select, query), "ShoppingCart").all();
+    }
+
+    @Override
+    public Mono<String> findDetailById(Long id) {
+        RowsFetchSpec<String> query = db.sql(DETAIL_QUERY).bind(0, id).map((row, metadata) -> row.get(0, String.class));
+        return reactiveObserver.observe(sqlStatistics.track(DETAIL_QUERY, query), "ShoppingCart").one();
+    }
+
     private ShoppingCart process(Row row, RowMetadata metadata) {
         ShoppingCart entity = shoppingcartMapper.apply(row, "e");
         entity.setCustomerDetails(customerdetailsMapper.apply(row, "customerDetails"));
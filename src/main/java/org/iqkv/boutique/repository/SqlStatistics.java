@@ -0,0 +1,305 @@
+package org.iqkv.boutique.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Statistics of the SQL statements run by the repositories, keyed by their template: the statement with its literals
+ * replaced by {@code ?}, so that the values bound to a query are neither mixed in its key nor logged.
+ * <p>
+ * For each template, the number of calls, the total, maximum and 99th percentile times, and the number of rows
+ * returned are kept in lock-free accumulators. The statements slower than {@code application.sql-stats.slow-threshold}
+ * are logged.
+ */
+@Component
+public class SqlStatistics {
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatistics.class);
+
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+
+    private final ApplicationProperties.SqlStats sqlStatsProperties;
+
+    private final LongAdder untracked = new LongAdder();
+
+    // Template of each statement run, as most of them are built again for each call but with the same text
+    private final Cache<String, String> templates;
+
+    public SqlStatistics(ApplicationProperties applicationProperties) {
+        this.sqlStatsProperties = applicationProperties.getSqlStats();
+        this.templates = Caffeine.newBuilder().maximumSize(4L * sqlStatsProperties.getMaxStatements()).build();
+    }
+
+    /**
+     * Track the executions of a statement.
+     *
+     * @param sql the statement.
+     * @param spec the statement, mapped to entities.
+     * @param <T> the type of the entities.
+     * @return the statement, tracked on each fetch.
+     */
+    public <T> RowsFetchSpec<T> track(String sql, RowsFetchSpec<T> spec) {
+        return new RowsFetchSpec<>() {
+            @Override
+            public Mono<T> one() {
+                return track(sql, spec.one());
+            }
+
+            @Override
+            public Mono<T> first() {
+                return track(sql, spec.first());
+            }
+
+            @Override
+            public Flux<T> all() {
+                return track(sql, spec.all());
+            }
+        };
+    }
+
+    private <T> Mono<T> track(String sql, Mono<T> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono
+                .doOnSuccess(value -> record(sql, System.nanoTime() - start, value == null ? 0 : 1))
+                .doOnError(e -> record(sql, System.nanoTime() - start, 0));
+        });
+    }
+
+    private <T> Flux<T> track(String sql, Flux<T> flux) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            LongAdder rows = new LongAdder();
+            return flux
+                .doOnNext(element -> rows.increment())
+                .doOnComplete(() -> record(sql, System.nanoTime() - start, rows.sum()))
+                .doOnError(e -> record(sql, System.nanoTime() - start, rows.sum()));
+        });
+    }
+
+    /**
+     * Record an execution of a statement.
+     *
+     * @param sql the statement, with its literal values.
+     * @param nanos the duration of the execution, up to the last row.
+     * @param rows the number of rows returned.
+     */
+    public void record(String sql, long nanos, long rows) {
+        String template = templates.get(sql, SqlStatistics::normalize);
+        Statement statement = statements.get(template);
+        if (statement == null) {
+            if (statements.size() >= sqlStatsProperties.getMaxStatements()) {
+                untracked.increment();
+                return;
+            }
+            statement = statements.computeIfAbsent(template, Statement::new);
+        }
+        statement.record(nanos, rows);
+        Duration slowThreshold = sqlStatsProperties.getSlowThreshold();
+        if (nanos > slowThreshold.toNanos()) {
+            log.warn("Slow statement ({} ms, {} rows): {}", TimeUnit.NANOSECONDS.toMillis(nanos), rows, template);
+        }
+    }
+
+    /**
+     * Returns the statistics of the statements, the statements taking the most time first.
+     *
+     * @return the statistics.
+     */
+    public List<StatementStatistics> getStatistics() {
+        List<StatementStatistics> statistics = new ArrayList<>(statements.size());
+        for (Statement statement : statements.values()) {
+            statistics.add(statement.snapshot());
+        }
+        statistics.sort(Comparator.comparingDouble(StatementStatistics::totalTimeMs).reversed());
+        return statistics;
+    }
+
+    /**
+     * Returns the number of executions not tracked, because {@code application.sql-stats.max-statements} was reached.
+     *
+     * @return the number of executions.
+     */
+    public long getUntracked() {
+        return untracked.sum();
+    }
+
+    /**
+     * Clear the statistics.
+     */
+    public void reset() {
+        statements.clear();
+        untracked.reset();
+    }
+
+    /**
+     * Replace the literals of a statement by {@code ?}, and its runs of whitespaces by a single space.
+     *
+     * @param sql the statement.
+     * @return the template of the statement.
+     */
+    static String normalize(String sql) {
+        StringBuilder template = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // String literal, with '' as an escaped quote
+                i++;
+                while (i < length && (sql.charAt(i) != '\'' || (i + 1 < length && sql.charAt(i + 1) == '\''))) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                i++;
+                template.append('?');
+            } else if (Character.isDigit(c) && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                template.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (!template.isEmpty() && i < length) {
+                    template.append(' ');
+                }
+            } else {
+                template.append(c);
+                i++;
+            }
+        }
+        return template.toString();
+    }
+
+    /**
+     * The statistics of a statement.
+     *
+     * @param sql the template of the statement.
+     * @param calls the number of executions.
+     * @param totalTimeMs the total time of the executions, in milliseconds.
+     * @param meanTimeMs the mean time of an execution, in milliseconds.
+     * @param maxTimeMs the maximum time of an execution, in milliseconds.
+     * @param p99TimeMs the 99th percentile of the time of an execution, in milliseconds.
+     * @param rows the total number of rows returned.
+     */
+    public record StatementStatistics(
+        String sql,
+        long calls,
+        double totalTimeMs,
+        double meanTimeMs,
+        double maxTimeMs,
+        double p99TimeMs,
+        long rows
+    ) {}
+
+    private static final class Statement {
+
+        private final String template;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Statement(String template) {
+            this.template = template;
+        }
+
+        void record(long nanos, long rowCount) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            rows.add(rowCount);
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        }
+
+        StatementStatistics snapshot() {
+            long count = calls.sum();
+            double total = totalNanos.sum() / 1e6;
+            return new StatementStatistics(
+                template,
+                count,
+                total,
+                count == 0 ? 0 : total / count,
+                maxNanos.get() / 1e6,
+                histogram.percentile(0.99) / 1e3,
+                rows.sum()
+            );
+        }
+    }
+
+    /**
+     * Histogram of latencies in microseconds, with four buckets per power of two, so within 25% of the actual values.
+     */
+    static final class LatencyHistogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(4 * 62);
+
+        void record(long micros) {
+            buckets.incrementAndGet(index(Math.max(micros, 0)));
+        }
+
+        /**
+         * Returns an upper bound of a percentile.
+         *
+         * @param percentile the percentile, from 0 to 1.
+         * @return the latency in microseconds.
+         */
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                total += buckets.get(i);
+            }
+            long target = (long) Math.ceil(total * percentile);
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+                if (count >= target && count > 0) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        static int index(long micros) {
+            if (micros < 4) {
+                return (int) micros;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >>> (exponent - 2)) & 3;
+            return Math.min(4 * (exponent - 1) + sub, 4 * 62 - 1);
+        }
+
+        static long upperBound(int index) {
+            if (index < 4) {
+                return index;
+            }
+            int exponent = index / 4 + 1;
+            int sub = index % 4;
+            return ((4L + sub + 1) << (exponent - 2)) - 1;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.iqkv.boutique.repository;
+
+import java.time.Instant;
+import org.iqkv.boutique.domain.StockReservation;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the StockReservation entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface StockReservationRepository extends ReactiveCrudRepository<StockReservation, Long> {
+    /**
+     * Delete the reservation and return it, so that only one caller ever gets to release or confirm it.
+     */
+    @Query("DELETE FROM stock_reservation WHERE id = :id RETURNING *")
+    Mono<StockReservation> deleteReturningById(Long id);
+
+    /**
+     * Same as {@link #deleteReturningById(Long)}, but only if the reservation was made by {@code reservedBy}.
+     */
+    @Query("DELETE FROM stock_reservation WHERE id = :id AND reserved_by = :reservedBy RETURNING *")
+    Mono<StockReservation> deleteReturningByIdAndReservedBy(Long id, String reservedBy);
+
+    /**
+     * Delete up to {@code limit} reservations expired before {@code now}. Rows locked by another node's sweeper are skipped.
+     */
+    @Query(
+        "DELETE FROM stock_reservation WHERE id IN (" +
+        "SELECT id FROM stock_reservation WHERE expires_at < :now ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED)" +
+        " RETURNING *"
+    )
+    Flux<StockReservation> deleteExpired(Instant now, Integer limit);
+}
@@ -2,6 +2,7 @@ package org.iqkv.boutique.repository.rowmapper;
 
 import io.r2dbc.spi.Row;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.function.BiFunction;
 import org.iqkv.boutique.domain.ProductOrder;
 import org.springframework.stereotype.Service;
@@ -30,6 +31,7 @@ public class ProductOrderRowMapper implements BiFunction<Row, String, ProductOrd
         entity.setTotalPrice(converter.fromRow(row, prefix + "_total_price", BigDecimal.class));
         entity.setProductId(converter.fromRow(row, prefix + "_product_id", Long.class));
         entity.setCartId(converter.fromRow(row, prefix + "_cart_id", Long.class));
+        entity.setCartPlacedDate(converter.fromRow(row, prefix + "_cart_placed_date", Instant.class));
         return entity;
     }
 }
@@ -33,6 +33,7 @@ public class ProductRowMapper implements BiFunction<Row, String, Product> {
         entity.setProductSize(converter.fromRow(row, prefix + "_product_size", Size.class));
         entity.setImageContentType(converter.fromRow(row, prefix + "_image_content_type", String.class));
         entity.setImage(converter.fromRow(row, prefix + "_image", byte[].class));
+        entity.setStock(converter.fromRow(row, prefix + "_stock", Integer.class));
         entity.setProductCategoryId(converter.fromRow(row, prefix + "_product_category_id", Long.class));
         return entity;
     }
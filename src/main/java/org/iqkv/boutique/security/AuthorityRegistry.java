@@ -0,0 +1,107 @@
+package org.iqkv.boutique.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Registry interning the authorities, so that each one gets a small integer id and a single
+ * {@link GrantedAuthority} instance.
+ * <p>
+ * The {@link AuthoritySet} of a user is computed once per token or principal, then authority checks are bit tests.
+ */
+public final class AuthorityRegistry {
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private static final Map<String, GrantedAuthority> grantedAuthorities = new ConcurrentHashMap<>();
+
+    // Keys are compared by identity, and released with the tokens and principals they belong to
+    private static final Cache<Object, AuthoritySet> authoritySets = Caffeine.newBuilder().weakKeys().maximumSize(10_000).build();
+
+    static {
+        intern(AuthoritiesConstants.ADMIN);
+        intern(AuthoritiesConstants.USER);
+        intern(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    private AuthorityRegistry() {}
+
+    /**
+     * Get the id of an authority, registering it if needed.
+     *
+     * @param authority the authority.
+     * @return the id of the authority.
+     */
+    public static int intern(String authority) {
+        return ids.computeIfAbsent(authority, key -> nextId.getAndIncrement());
+    }
+
+    /**
+     * Get the id of an authority.
+     *
+     * @param authority the authority.
+     * @return the id of the authority, or {@code -1} if it was never registered.
+     */
+    public static int idOf(String authority) {
+        return ids.getOrDefault(authority, -1);
+    }
+
+    /**
+     * Get the shared {@link GrantedAuthority} instance of an authority.
+     *
+     * @param authority the authority.
+     * @return the granted authority.
+     */
+    public static GrantedAuthority grantedAuthority(String authority) {
+        return grantedAuthorities.computeIfAbsent(authority, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Get the authorities of an authentication, computed once per token or principal.
+     *
+     * @param authentication the authentication.
+     * @return the authorities.
+     */
+    public static AuthoritySet of(Authentication authentication) {
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            return authoritySets.get(jwtAuthentication.getToken(), key -> of(authentication.getAuthorities()));
+        }
+        if (authentication.getPrincipal() instanceof OAuth2AuthenticatedPrincipal principal) {
+            return authoritySets.get(principal, key -> of(authentication.getAuthorities()));
+        }
+        return of(authentication.getAuthorities());
+    }
+
+    /**
+     * Get the set of some authorities.
+     *
+     * @param authorities the authorities.
+     * @return the authority set.
+     */
+    public static AuthoritySet of(Collection<? extends GrantedAuthority> authorities) {
+        BitSet bits = new BitSet();
+        Set<String> names = new LinkedHashSet<>();
+        for (GrantedAuthority grantedAuthority : authorities) {
+            String authority = grantedAuthority.getAuthority();
+            if (authority != null) {
+                bits.set(intern(authority));
+                names.add(authority);
+            }
+        }
+        return new AuthoritySet(bits, Set.copyOf(names));
+    }
+}
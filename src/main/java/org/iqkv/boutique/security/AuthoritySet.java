@@ -0,0 +1,54 @@
+package org.iqkv.boutique.security;
+
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * The authorities of a user, as a bitset of the ids given by {@link AuthorityRegistry}.
+ */
+public final class AuthoritySet {
+
+    private final BitSet ids;
+
+    private final Set<String> names;
+
+    AuthoritySet(BitSet ids, Set<String> names) {
+        this.ids = ids;
+        this.names = names;
+    }
+
+    /**
+     * Checks if this set contains an authority.
+     *
+     * @param authority the authority to check.
+     * @return true if this set contains the authority, false otherwise.
+     */
+    public boolean contains(String authority) {
+        int id = AuthorityRegistry.idOf(authority);
+        return id >= 0 && ids.get(id);
+    }
+
+    /**
+     * Checks if this set contains any of the authorities.
+     *
+     * @param authorities the authorities to check.
+     * @return true if this set contains any of the authorities, false otherwise.
+     */
+    public boolean containsAny(String... authorities) {
+        for (String authority : authorities) {
+            if (contains(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the authorities.
+     *
+     * @return the unmodifiable set of the authority names.
+     */
+    public Set<String> names() {
+        return names;
+    }
+}
@@ -1,7 +1,6 @@
 package org.iqkv.boutique.security;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -11,7 +10,6 @@ import java.util.stream.Collectors;
 import org.iqkv.boutique.config.Constants;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -66,8 +64,8 @@ public final class SecurityUtils {
     public static Mono<Boolean> isAuthenticated() {
         return ReactiveSecurityContextHolder.getContext()
             .map(SecurityContext::getAuthentication)
-            .map(Authentication::getAuthorities)
-            .map(authorities -> authorities.stream().map(GrantedAuthority::getAuthority).noneMatch(AuthoritiesConstants.ANONYMOUS::equals));
+            .map(AuthorityRegistry::of)
+            .map(authorities -> !authorities.contains(AuthoritiesConstants.ANONYMOUS));
     }
 
     /**
@@ -79,14 +77,8 @@ public final class SecurityUtils {
     public static Mono<Boolean> hasCurrentUserAnyOfAuthorities(String... authorities) {
         return ReactiveSecurityContextHolder.getContext()
             .map(SecurityContext::getAuthentication)
-            .map(Authentication::getAuthorities)
-            .map(
-                authorityList ->
-                    authorityList
-                        .stream()
-                        .map(GrantedAuthority::getAuthority)
-                        .anyMatch(authority -> Arrays.asList(authorities).contains(authority))
-            );
+            .map(AuthorityRegistry::of)
+            .map(authoritySet -> authoritySet.containsAny(authorities));
     }
 
     /**
@@ -122,7 +114,11 @@ public final class SecurityUtils {
     }
 
     private static List<GrantedAuthority> mapRolesToGrantedAuthorities(Collection<String> roles) {
-        return roles.stream().filter(role -> role.startsWith("ROLE_")).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        return roles
+            .stream()
+            .filter(role -> role.startsWith("ROLE_"))
+            .map(AuthorityRegistry::grantedAuthority)
+            .collect(Collectors.toList());
     }
 
     public static Map<String, Object> extractDetailsFromTokenAttributes(Map<String, Object> attributes) {
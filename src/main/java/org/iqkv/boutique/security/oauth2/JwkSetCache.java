@@ -0,0 +1,111 @@
+package org.iqkv.boutique.security.oauth2;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Local copy of the IdP signing keys, so that verifying a token does not wait on the IdP.
+ * <p>
+ * The keys are fetched in the background on a schedule, and again when a token is signed with an unknown key, at most
+ * once per {@code application.jwk-set.min-refresh-interval}. If the IdP cannot be reached, the last keys fetched keep
+ * being used.
+ */
+@Component
+public class JwkSetCache {
+
+    private final Logger log = LoggerFactory.getLogger(JwkSetCache.class);
+
+    private final WebClient webClient;
+
+    private final ApplicationProperties.JwkSet jwkSetProperties;
+
+    private final Mono<String> jwkSetUri;
+
+    private final AtomicReference<Mono<JWKSet>> refreshing = new AtomicReference<>();
+
+    private volatile JWKSet jwkSet;
+
+    private volatile Instant lastFetch = Instant.MIN;
+
+    public JwkSetCache(
+        ReactiveClientRegistrationRepository registrations,
+        WebClient.Builder webClientBuilder,
+        ApplicationProperties applicationProperties
+    ) {
+        this.webClient = webClientBuilder.build();
+        this.jwkSetProperties = applicationProperties.getJwkSet();
+        this.jwkSetUri = registrations
+            .findByRegistrationId("oidc")
+            .map(oidc -> oidc.getProviderDetails().getJwkSetUri())
+            .switchIfEmpty(Mono.error(() -> new IllegalStateException("No oidc client registration")))
+            .cache(uri -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * Select the keys which may have signed a token.
+     *
+     * @param jwt the token.
+     * @return the matching keys, empty if there are none.
+     */
+    public Flux<JWK> select(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        JWKSet current = jwkSet;
+        if (current == null) {
+            return refreshOrStale().flatMapIterable(selector::select);
+        }
+        List<JWK> keys = selector.select(current);
+        if (!keys.isEmpty() || Instant.now().isBefore(lastFetch.plus(jwkSetProperties.getMinRefreshInterval()))) {
+            return Flux.fromIterable(keys);
+        }
+        log.debug("Unknown signing key {}, fetching the JWK set again", jwt.getHeader().getKeyID());
+        return refreshOrStale().flatMapIterable(selector::select);
+    }
+
+    /**
+     * Fetch the keys from the IdP, keeping the previous ones if it cannot be reached.
+     *
+     * @return a {@link Mono} to signal the end of the fetch.
+     */
+    @Scheduled(fixedDelayString = "${application.jwk-set.refresh-interval:PT5M}")
+    public Mono<Void> refreshKeys() {
+        return refreshOrStale().then();
+    }
+
+    private Mono<JWKSet> refreshOrStale() {
+        // Concurrent callers share the fetch in flight
+        return Mono.defer(() -> refreshing.updateAndGet(current -> current != null ? current : fetch()))
+            .onErrorResume(e -> {
+                log.warn("Could not fetch the JWK set, using the keys fetched at {}: {}", lastFetch, e.getMessage());
+                return Mono.justOrEmpty(jwkSet);
+            });
+    }
+
+    private Mono<JWKSet> fetch() {
+        return jwkSetUri
+            .doOnNext(uri -> lastFetch = Instant.now())
+            .flatMap(uri -> webClient.get().uri(uri).retrieve().bodyToMono(String.class))
+            .flatMap(body -> Mono.fromCallable(() -> JWKSet.parse(body)))
+            .doOnNext(keys -> {
+                jwkSet = keys;
+                log.debug("Fetched {} signing keys", keys.getKeys().size());
+            })
+            .doFinally(signal -> refreshing.set(null))
+            .share();
+    }
+}
@@ -1,6 +1,9 @@
 package org.iqkv.boutique.security.oauth2;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.Collection;
+import java.util.List;
 import org.iqkv.boutique.security.SecurityUtils;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
@@ -10,12 +13,15 @@ import org.springframework.stereotype.Component;
 @Component
 public class JwtGrantedAuthorityConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
+    // Verified tokens are cached, so the same Jwt instance comes back with each request carrying its token
+    private final Cache<Jwt, Collection<GrantedAuthority>> authorities = Caffeine.newBuilder().weakKeys().maximumSize(10_000).build();
+
     public JwtGrantedAuthorityConverter() {
         // Bean extracting authority.
     }
 
     @Override
     public Collection<GrantedAuthority> convert(Jwt jwt) {
-        return SecurityUtils.extractAuthorityFromClaims(jwt.getClaims());
+        return authorities.get(jwt, key -> List.copyOf(SecurityUtils.extractAuthorityFromClaims(key.getClaims())));
     }
 }
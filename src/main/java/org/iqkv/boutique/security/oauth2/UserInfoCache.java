@@ -0,0 +1,206 @@
+package org.iqkv.boutique.security.oauth2;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.repository.CachedUserInfoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache of the claims fetched from the IdP userinfo endpoint, by subject, used to complete access tokens lacking
+ * identity claims.
+ * <p>
+ * Concurrent first requests of a user share a single call to the IdP. The claims of an active user are fetched again in
+ * the background shortly before they expire, so that its requests never wait for the IdP. When
+ * {@code application.user-info.persistent} is enabled, the claims are also kept in the {@code cached_user_info} table,
+ * so that a freshly started node loads them from the database instead of the IdP.
+ */
+@Component
+public class UserInfoCache {
+
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {};
+
+    private final Logger log = LoggerFactory.getLogger(UserInfoCache.class);
+
+    private final CachedUserInfoRepository cachedUserInfoRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final WebClient webClient;
+
+    private final ApplicationProperties.UserInfo userInfoProperties;
+
+    // See https://github.com/jhipster/generator-jhipster/issues/18868
+    private final AsyncCache<String, UserInfo> users;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public UserInfoCache(
+        CachedUserInfoRepository cachedUserInfoRepository,
+        ObjectMapper objectMapper,
+        WebClient.Builder webClientBuilder,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.cachedUserInfoRepository = cachedUserInfoRepository;
+        this.objectMapper = objectMapper;
+        // Built once, so that all the calls share the connection pool
+        this.webClient = webClientBuilder.build();
+        this.userInfoProperties = applicationProperties.getUserInfo();
+        this.users = CaffeineCacheMetrics.monitor(
+            meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(userInfoProperties.getMaxEntries())
+                .expireAfter(new UserInfoExpiry())
+                .recordStats()
+                .<String, UserInfo>buildAsync(),
+            "users"
+        );
+    }
+
+    /**
+     * Complete a token with the claims of its user.
+     *
+     * @param jwt the decoded token, lacking identity claims.
+     * @param userInfoUri the IdP userinfo endpoint.
+     * @return the token, with the claims of its user.
+     */
+    public Mono<Jwt> enrich(Jwt jwt, String userInfoUri) {
+        String subject = jwt.getSubject();
+        return Mono.fromFuture(() -> users.get(subject, (key, executor) -> load(key, jwt.getTokenValue(), userInfoUri).toFuture()), true)
+            .doOnNext(userInfo -> refreshAhead(subject, jwt.getTokenValue(), userInfoUri, userInfo))
+            .map(userInfo ->
+                Jwt.withTokenValue(jwt.getTokenValue())
+                    .subject(jwt.getSubject())
+                    .audience(jwt.getAudience())
+                    .headers(headers -> headers.putAll(jwt.getHeaders()))
+                    .claims(claims -> claims.putAll(userInfo.claims()))
+                    .claims(claims -> claims.putAll(jwt.getClaims()))
+                    .build()
+            );
+    }
+
+    /**
+     * Purge the expired claims from the database.
+     *
+     * @return a {@link Mono} to signal the end of the purge.
+     */
+    @Scheduled(fixedDelayString = "${application.user-info.time-to-live:PT1H}")
+    public Mono<Void> deleteExpired() {
+        if (!userInfoProperties.isPersistent()) {
+            return Mono.empty();
+        }
+        return cachedUserInfoRepository
+            .deleteExpired(Instant.now())
+            .filter(deleted -> deleted > 0)
+            .doOnNext(deleted -> log.debug("Deleted {} expired user infos", deleted))
+            .then();
+    }
+
+    private Mono<UserInfo> load(String subject, String token, String userInfoUri) {
+        if (!userInfoProperties.isPersistent()) {
+            return fetch(subject, token, userInfoUri);
+        }
+        return cachedUserInfoRepository
+            .findUnexpiredById(subject, Instant.now())
+            .flatMap(stored ->
+                Mono.fromCallable(() -> new UserInfo(objectMapper.readValue(stored.getClaims(), CLAIMS_TYPE), stored.getExpiresAt()))
+            )
+            .switchIfEmpty(Mono.defer(() -> fetch(subject, token, userInfoUri)));
+    }
+
+    private void refreshAhead(String subject, String token, String userInfoUri, UserInfo userInfo) {
+        if (Instant.now().isBefore(userInfo.expiresAt().minus(userInfoProperties.getRefreshAhead())) || !refreshing.add(subject)) {
+            return;
+        }
+        log.debug("Refreshing the user info of : {}", subject);
+        fetch(subject, token, userInfoUri)
+            .doFinally(signal -> refreshing.remove(subject))
+            .subscribe(
+                refreshed -> users.put(subject, CompletableFuture.completedFuture(refreshed)),
+                e -> log.warn("Could not refresh the user info of {}: {}", subject, e.getMessage())
+            );
+    }
+
+    private Mono<UserInfo> fetch(String subject, String token, String userInfoUri) {
+        return webClient
+            .get()
+            .uri(userInfoUri)
+            .headers(headers -> headers.setBearerAuth(token))
+            .retrieve()
+            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .map(userInfo -> {
+                String username = userInfo.get("preferred_username").toString();
+                // special handling for Auth0
+                if (userInfo.get("sub").toString().contains("|") && username.contains("@")) {
+                    userInfo.put("email", username);
+                }
+                // Allow full name in a name claim - happens with Auth0
+                if (userInfo.get("name") != null) {
+                    String[] name = userInfo.get("name").toString().split("\\s+");
+                    if (name.length > 0) {
+                        userInfo.put("given_name", name[0]);
+                        userInfo.put("family_name", String.join(" ", Arrays.copyOfRange(name, 1, name.length)));
+                    }
+                }
+                return new UserInfo(userInfo, Instant.now().plus(userInfoProperties.getTimeToLive()));
+            })
+            .flatMap(userInfo -> store(subject, userInfo));
+    }
+
+    private Mono<UserInfo> store(String subject, UserInfo userInfo) {
+        if (!userInfoProperties.isPersistent()) {
+            return Mono.just(userInfo);
+        }
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(userInfo.claims()))
+            .flatMap(claims -> cachedUserInfoRepository.upsert(subject, claims, userInfo.expiresAt()))
+            // The database is only a second tier: the claims are still used if they could not be stored
+            .onErrorResume(e -> {
+                log.warn("Could not store the user info of {}: {}", subject, e.getMessage());
+                return Mono.empty();
+            })
+            .thenReturn(userInfo);
+    }
+
+    private record UserInfo(Map<String, Object> claims, Instant expiresAt) {}
+
+    /**
+     * Keep the claims in memory until they expire, including those loaded from the database.
+     */
+    private static class UserInfoExpiry implements Expiry<String, UserInfo> {
+
+        @Override
+        public long expireAfterCreate(String subject, UserInfo userInfo, long currentTime) {
+            return Math.max(Duration.between(Instant.now(), userInfo.expiresAt()).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String subject, UserInfo userInfo, long currentTime, long currentDuration) {
+            return expireAfterCreate(subject, userInfo, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String subject, UserInfo userInfo, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.iqkv.boutique.security.oauth2;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache of the bearer tokens already verified, so that the signature, issuer and audience of a token are only checked
+ * the first time it is received.
+ * <p>
+ * Tokens are keyed by their SHA-256 hash, and evicted when they expire. Tokens without an expiry are never cached, and
+ * neither are the tokens rejected by the decoder.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final AsyncCache<String, Jwt> tokens;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.tokens = CaffeineCacheMetrics.monitor(
+            meterRegistry,
+            Caffeine.newBuilder()
+                .maximumSize(applicationProperties.getVerifiedTokens().getMaxEntries())
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .<String, Jwt>buildAsync(),
+            "verifiedTokens"
+        );
+    }
+
+    /**
+     * Decode a token, unless it was already verified.
+     *
+     * @param token the bearer token.
+     * @param jwtDecoder the decoder verifying the token on a miss.
+     * @return the decoded token.
+     */
+    public Mono<Jwt> decode(String token, ReactiveJwtDecoder jwtDecoder) {
+        return Mono.fromFuture(() -> tokens.get(hash(token), (key, executor) -> jwtDecoder.decode(token).toFuture()), true);
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Keep a token until its {@code exp} claim.
+     */
+    private static class TokenExpiry implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            return expiresAt == null ? 0 : Math.max(Duration.between(Instant.now(), expiresAt).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package org.iqkv.boutique.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
 import org.iqkv.boutique.domain.CustomerDetails;
 import org.iqkv.boutique.repository.CustomerDetailsRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -21,6 +27,12 @@ public class CustomerDetailsService {
 
     private final CustomerDetailsRepository customerDetailsRepository;
 
+    // Customer of each login, evicted when a customer is written, so that it is not kept for a user it was taken from
+    private final Cache<String, Long> idsByUserLogin = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofMinutes(10))
+        .build();
+
     public CustomerDetailsService(CustomerDetailsRepository customerDetailsRepository) {
         this.customerDetailsRepository = customerDetailsRepository;
     }
@@ -33,7 +45,7 @@ public class CustomerDetailsService {
      */
     public Mono<CustomerDetails> save(CustomerDetails customerDetails) {
         log.debug("Request to save CustomerDetails : {}", customerDetails);
-        return customerDetailsRepository.save(customerDetails);
+        return evictUserLogins(customerDetails.getId()).then(customerDetailsRepository.save(customerDetails));
     }
 
     /**
@@ -44,7 +56,7 @@ public class CustomerDetailsService {
      */
     public Mono<CustomerDetails> update(CustomerDetails customerDetails) {
         log.debug("Request to update CustomerDetails : {}", customerDetails);
-        return customerDetailsRepository.save(customerDetails);
+        return evictUserLogins(customerDetails.getId()).then(customerDetailsRepository.save(customerDetails));
     }
 
     /**
@@ -56,8 +68,8 @@ public class CustomerDetailsService {
     public Mono<CustomerDetails> partialUpdate(CustomerDetails customerDetails) {
         log.debug("Request to partially update CustomerDetails : {}", customerDetails);
 
-        return customerDetailsRepository
-            .findById(customerDetails.getId())
+        return evictUserLogins(customerDetails.getId())
+            .then(customerDetailsRepository.findById(customerDetails.getId()))
             .map(existingCustomerDetails -> {
                 if (customerDetails.getGender() != null) {
                     existingCustomerDetails.setGender(customerDetails.getGender());
@@ -100,6 +112,7 @@ public class CustomerDetailsService {
      *
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
     public Flux<CustomerDetails> findAllWithEagerRelationships(Pageable pageable) {
         return customerDetailsRepository.findAllWithEagerRelationships(pageable);
     }
@@ -109,6 +122,7 @@ public class CustomerDetailsService {
      * @return the number of entities in the database.
      *
      */
+    @Transactional(readOnly = true)
     public Mono<Long> countAll() {
         return customerDetailsRepository.count();
     }
@@ -133,6 +147,47 @@ public class CustomerDetailsService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete CustomerDetails : {}", id);
-        return customerDetailsRepository.deleteById(id);
+        return evictUserLogins(id).then(customerDetailsRepository.deleteById(id));
+    }
+
+    /**
+     * Get the id of the customerDetails of a user, cached for a few minutes.
+     *
+     * @param login the login of the user.
+     * @return the id of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Long> findIdByUserLogin(String login) {
+        return Mono.justOrEmpty(idsByUserLogin.getIfPresent(login)).switchIfEmpty(
+            Mono.defer(() -> customerDetailsRepository.findIdByUserLogin(login).doOnNext(id -> idsByUserLogin.put(login, id)))
+        );
+    }
+
+    /**
+     * Evict the logins cached for a customerDetails now, and once again when the transaction completes, as another
+     * request may cache the former user of the entity until then.
+     */
+    private Mono<Void> evictUserLogins(Long id) {
+        if (id == null) {
+            return Mono.empty();
+        }
+        evictUserLoginsNow(id);
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .doOnNext(synchronizationManager ->
+                synchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCompletion(int status) {
+                            return Mono.fromRunnable(() -> evictUserLoginsNow(id));
+                        }
+                    }
+                )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .then();
+    }
+
+    private void evictUserLoginsNow(Long id) {
+        idsByUserLogin.asMap().values().removeIf(id::equals);
     }
 }
@@ -0,0 +1,13 @@
+package org.iqkv.boutique.service;
+
+/**
+ * Thrown when a request with the same idempotency key is still being processed, and did not complete in time.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyConflictException() {
+        super("A request with the same Idempotency-Key is still being processed");
+    }
+}
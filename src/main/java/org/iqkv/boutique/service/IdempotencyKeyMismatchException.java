@@ -0,0 +1,13 @@
+package org.iqkv.boutique.service;
+
+/**
+ * Thrown when an idempotency key is reused for a request with another body than the first one.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyMismatchException() {
+        super("The Idempotency-Key was already used for a request with another body");
+    }
+}
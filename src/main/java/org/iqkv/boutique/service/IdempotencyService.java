@@ -0,0 +1,175 @@
+package org.iqkv.boutique.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.domain.IdempotencyKey;
+import org.iqkv.boutique.repository.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service running a request at most once per idempotency key, and recording its response for the retries.
+ * <p>
+ * Responses are kept in a bounded in-memory cache, in front of the {@code idempotency_key} table shared by all nodes.
+ * Concurrent duplicates on the same node wait for the in-flight request; duplicates on other nodes poll the table. Both
+ * wait up to {@code application.idempotency.wait-timeout}. A key is released when its request fails or is cancelled.
+ * <p>
+ * This service is not transactional on purpose: a key must be visible to the other nodes as soon as it is taken.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final ApplicationProperties.Idempotency idempotencyProperties;
+
+    private final AsyncCache<String, IdempotencyKey> responses;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, ApplicationProperties applicationProperties) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyProperties = applicationProperties.getIdempotency();
+        this.responses = Caffeine.newBuilder()
+            .maximumSize(idempotencyProperties.getMaxEntries())
+            .expireAfterWrite(idempotencyProperties.getTimeToLive())
+            .buildAsync();
+    }
+
+    /**
+     * Run {@code action} unless a request with the same key already ran.
+     *
+     * @param key the idempotency key, already scoped to the caller.
+     * @param requestHash the hash of the request body, which must be the same as the one of the first request.
+     * @param action the request processing, emitting the response to record, or nothing if it must not be recorded.
+     * @return the recorded response to replay, or empty if {@code action} ran for this call; an
+     * {@link IdempotencyKeyMismatchException} if the first request had another body, or an
+     * {@link IdempotencyConflictException} if it did not complete in time.
+     */
+    public Mono<IdempotencyKey> execute(String key, String requestHash, Supplier<Mono<IdempotencyKey>> action) {
+        return Mono.defer(() -> {
+            CompletableFuture<IdempotencyKey> inFlight = new CompletableFuture<>();
+            CompletableFuture<IdempotencyKey> existing = responses.asMap().putIfAbsent(key, inFlight);
+            if (existing != null) {
+                log.debug("Waiting for the response of Idempotency-Key : {}", key);
+                // The future is shared by all the duplicates: one giving up must not cancel it for the others
+                return Mono.fromFuture(existing, true)
+                    .timeout(idempotencyProperties.getWaitTimeout(), Mono.error(IdempotencyConflictException::new))
+                    // If the first request could not be recorded, one of its duplicates runs it again
+                    .onErrorResume(e -> !(e instanceof IdempotencyConflictException), e -> execute(key, requestHash, action))
+                    .flatMap(recorded -> checkRequestHash(recorded, requestHash));
+            }
+            return acquireOrAwait(key, requestHash, action, inFlight, Instant.now().plus(idempotencyProperties.getWaitTimeout()))
+                .doOnError(e -> {
+                    responses.asMap().remove(key, inFlight);
+                    inFlight.completeExceptionally(e);
+                })
+                .doOnCancel(() -> {
+                    if (!inFlight.isDone()) {
+                        responses.asMap().remove(key, inFlight);
+                        inFlight.completeExceptionally(new CancellationException("Request cancelled"));
+                    }
+                })
+                .flatMap(recorded -> checkRequestHash(recorded, requestHash));
+        });
+    }
+
+    /**
+     * Purge the expired keys from the database.
+     *
+     * @return a {@link Mono} to signal the end of the purge.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.sweep-interval:PT5M}")
+    public Mono<Void> deleteExpiredKeys() {
+        return idempotencyKeyRepository
+            .deleteExpired(Instant.now())
+            .filter(deleted -> deleted > 0)
+            .doOnNext(deleted -> log.debug("Deleted {} expired idempotency keys", deleted))
+            .then();
+    }
+
+    private Mono<IdempotencyKey> acquireOrAwait(
+        String key,
+        String requestHash,
+        Supplier<Mono<IdempotencyKey>> action,
+        CompletableFuture<IdempotencyKey> inFlight,
+        Instant deadline
+    ) {
+        Instant now = Instant.now();
+        return idempotencyKeyRepository
+            .acquire(key, requestHash, now.plus(idempotencyProperties.getLockTimeout()), now)
+            .flatMap(acquired -> {
+                if (acquired > 0) {
+                    return run(key, requestHash, action, inFlight);
+                }
+                return idempotencyKeyRepository
+                    .findById(key)
+                    .flatMap(stored -> {
+                        if (stored.isCompleted()) {
+                            inFlight.complete(stored);
+                            return Mono.just(stored);
+                        }
+                        if (!Objects.equals(stored.getRequestHash(), requestHash)) {
+                            return Mono.error(new IdempotencyKeyMismatchException());
+                        }
+                        if (now.isAfter(deadline)) {
+                            return Mono.error(new IdempotencyConflictException());
+                        }
+                        return Mono.delay(POLL_INTERVAL).then(
+                            Mono.defer(() -> acquireOrAwait(key, requestHash, action, inFlight, deadline))
+                        );
+                    })
+                    // The key was released in the meantime
+                    .switchIfEmpty(Mono.defer(() -> acquireOrAwait(key, requestHash, action, inFlight, deadline)));
+            });
+    }
+
+    private Mono<IdempotencyKey> run(
+        String key,
+        String requestHash,
+        Supplier<Mono<IdempotencyKey>> action,
+        CompletableFuture<IdempotencyKey> inFlight
+    ) {
+        return action
+            .get()
+            .flatMap(response -> {
+                Instant expiresAt = Instant.now().plus(idempotencyProperties.getTimeToLive());
+                return idempotencyKeyRepository
+                    .complete(key, response.getResponseStatus(), response.getResponseHeaders(), response.getResponseBody(), expiresAt)
+                    .doOnSuccess(updated -> inFlight.complete(response.id(key).requestHash(requestHash).expiresAt(expiresAt)));
+            })
+            .switchIfEmpty(Mono.defer(() -> release(key, inFlight, new IllegalStateException("Response not recorded"))))
+            .onErrorResume(e -> release(key, inFlight, e).then(Mono.error(e)))
+            // The client went away before the response was recorded: the request can be retried
+            .doOnCancel(() -> release(key, inFlight, new CancellationException("Request cancelled")).subscribe())
+            .then(Mono.empty());
+    }
+
+    private static Mono<IdempotencyKey> checkRequestHash(IdempotencyKey recorded, String requestHash) {
+        return Objects.equals(recorded.getRequestHash(), requestHash)
+            ? Mono.just(recorded)
+            : Mono.error(new IdempotencyKeyMismatchException());
+    }
+
+    private Mono<Long> release(String key, CompletableFuture<IdempotencyKey> inFlight, Throwable cause) {
+        return idempotencyKeyRepository
+            .deleteById(key)
+            .doFinally(signal -> {
+                responses.asMap().remove(key, inFlight);
+                inFlight.completeExceptionally(cause);
+            })
+            .then(Mono.empty());
+    }
+}
@@ -0,0 +1,13 @@
+package org.iqkv.boutique.service;
+
+/**
+ * Thrown when a product has not enough stock left to reserve the requested quantity.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InsufficientStockException(Long productId, Integer quantity) {
+        super("Not enough stock left to reserve " + quantity + " of product " + productId);
+    }
+}
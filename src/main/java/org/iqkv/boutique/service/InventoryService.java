@@ -0,0 +1,227 @@
+package org.iqkv.boutique.service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.domain.StockReservation;
+import org.iqkv.boutique.repository.ProductRepository;
+import org.iqkv.boutique.repository.StockReservationRepository;
+import org.iqkv.boutique.security.AuthoritiesConstants;
+import org.iqkv.boutique.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service managing the stock of {@link org.iqkv.boutique.domain.Product} and its {@link StockReservation}s.
+ * <p>
+ * Stock is only ever changed with single conditional statements, never with read-modify-write cycles. The stock of a
+ * hot product can be spread over several stripe rows, so that concurrent reservations update different rows instead
+ * of queueing on the lock of the product row.
+ * <p>
+ * A reservation can only be confirmed or released by the user who made it, or by an admin.
+ */
+@Service
+@Transactional
+public class InventoryService {
+
+    private final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private final ProductRepository productRepository;
+
+    private final StockReservationRepository stockReservationRepository;
+
+    private final ApplicationProperties.Inventory inventoryProperties;
+
+    public InventoryService(
+        ProductRepository productRepository,
+        StockReservationRepository stockReservationRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.inventoryProperties = applicationProperties.getInventory();
+    }
+
+    /**
+     * Reserve items of a product for the current user, taking them from the product row first, then from one of its
+     * stripes, and from all of them together as a last resort.
+     *
+     * @param productId the id of the product.
+     * @param quantity the number of items to reserve.
+     * @return the reservation, or an {@link InsufficientStockException} if there is not enough stock left.
+     */
+    public Mono<StockReservation> reserve(Long productId, Integer quantity) {
+        log.debug("Request to reserve {} of Product : {}", quantity, productId);
+        return productRepository
+            .decrementStock(productId, quantity)
+            .flatMap(
+                updated ->
+                    updated > 0
+                        ? Mono.just(Optional.<Integer>empty())
+                        : takeFromStripes(productId, quantity)
+                            .map(Optional::of)
+                            .switchIfEmpty(Mono.defer(() -> takeFromAllCounters(productId, quantity)))
+            )
+            .switchIfEmpty(Mono.error(() -> new InsufficientStockException(productId, quantity)))
+            .zipWith(SecurityUtils.getCurrentUserLogin().map(Optional::of).defaultIfEmpty(Optional.empty()))
+            .flatMap(
+                stripeAndLogin ->
+                    stockReservationRepository.save(
+                        new StockReservation()
+                            .productId(productId)
+                            .stripe(stripeAndLogin.getT1().orElse(null))
+                            .quantity(quantity)
+                            .expiresAt(Instant.now().plus(inventoryProperties.getReservationTimeToLive()))
+                            .reservedBy(stripeAndLogin.getT2().orElse(null))
+                    )
+            );
+    }
+
+    /**
+     * Confirm a reservation of the current user: its items leave the stock for good.
+     *
+     * @param id the id of the reservation.
+     * @return the confirmed reservation, or empty if it was already released or confirmed, or made by another user.
+     */
+    public Mono<StockReservation> confirm(Long id) {
+        log.debug("Request to confirm StockReservation : {}", id);
+        return deleteOwned(id);
+    }
+
+    /**
+     * Release a reservation of the current user: its items go back to the stock they were taken from.
+     *
+     * @param id the id of the reservation.
+     * @return the released reservation, or empty if it was already released or confirmed, or made by another user.
+     */
+    public Mono<StockReservation> release(Long id) {
+        log.debug("Request to release StockReservation : {}", id);
+        return deleteOwned(id).flatMap(
+            reservation -> restore(reservation.getProductId(), reservation.getStripe(), reservation.getQuantity()).thenReturn(reservation)
+        );
+    }
+
+    /**
+     * Add items to the stock of a product.
+     *
+     * @param productId the id of the product.
+     * @param quantity the number of items to add.
+     * @return the stock now available, or empty if the product does not exist.
+     */
+    public Mono<Integer> addStock(Long productId, Integer quantity) {
+        log.debug("Request to add {} to the stock of Product : {}", quantity, productId);
+        return productRepository
+            .incrementStock(productId, quantity)
+            .filter(updated -> updated > 0)
+            .flatMap(updated -> productRepository.findAvailableStock(productId));
+    }
+
+    /**
+     * Get the stock available for reservation, over the product row and all of its stripes.
+     *
+     * @param productId the id of the product.
+     * @return the available stock, or empty if the product does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Integer> findAvailableStock(Long productId) {
+        return productRepository.findAvailableStock(productId);
+    }
+
+    /**
+     * Spread the whole stock of a product evenly over {@code stripes} stripes. With one stripe or less, the stock is
+     * moved back to the product row.
+     *
+     * @param productId the id of the product.
+     * @param stripes the number of stripes.
+     * @return the stock now available, or empty if the product does not exist.
+     */
+    public Mono<Integer> restripe(Long productId, Integer stripes) {
+        log.debug("Request to spread the stock of Product : {} over {} stripes", productId, stripes);
+        return productRepository
+            .drainStock(productId)
+            .flatMap(stock -> productRepository.drainStockStripes(productId).reduce(stock, Integer::sum))
+            .flatMap(
+                total ->
+                    (stripes > 1
+                            ? productRepository.createStockStripes(productId, stripes, total)
+                            : productRepository.incrementStock(productId, total)).thenReturn(total)
+            );
+    }
+
+    /**
+     * Give the items of expired reservations back to their stock.
+     * <p>
+     * Several nodes can run this concurrently: each one only deletes the reservations it managed to lock.
+     *
+     * @return a {@link Mono} to signal the end of the sweep.
+     */
+    @Scheduled(fixedDelayString = "${application.inventory.sweep-interval:PT30S}")
+    public Mono<Void> releaseExpiredReservations() {
+        return stockReservationRepository
+            .deleteExpired(Instant.now(), inventoryProperties.getSweepBatchSize())
+            .collect(
+                HashMap<StockCounter, Integer>::new,
+                (counters, reservation) ->
+                    counters.merge(
+                        new StockCounter(reservation.getProductId(), reservation.getStripe()),
+                        reservation.getQuantity(),
+                        Integer::sum
+                    )
+            )
+            .flatMapMany(counters -> Flux.fromIterable(counters.entrySet()))
+            .concatMap(counter -> restore(counter.getKey().productId(), counter.getKey().stripe(), counter.getValue()))
+            .count()
+            .filter(restored -> restored > 0)
+            .doOnNext(restored -> log.debug("Released expired reservations into {} stock counters", restored))
+            .then();
+    }
+
+    private Mono<Integer> takeFromStripes(Long productId, Integer quantity) {
+        int offset = ThreadLocalRandom.current().nextInt(Math.max(inventoryProperties.getStripes(), 1));
+        return productRepository
+            .decrementStockStripeSkipLocked(productId, quantity, offset)
+            .switchIfEmpty(Mono.defer(() -> productRepository.decrementStockStripe(productId, quantity, offset)));
+    }
+
+    /**
+     * The items are taken from several counters, so the reservation gives them back to the product row.
+     */
+    private Mono<Optional<Integer>> takeFromAllCounters(Long productId, Integer quantity) {
+        return productRepository
+            .decrementStockAcrossCounters(productId, quantity)
+            .filter(updated -> updated > 0)
+            .map(updated -> Optional.empty());
+    }
+
+    private Mono<StockReservation> deleteOwned(Long id) {
+        return SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)
+            .defaultIfEmpty(false)
+            .flatMap(
+                admin ->
+                    admin
+                        ? stockReservationRepository.deleteReturningById(id)
+                        : SecurityUtils.getCurrentUserLogin()
+                            .flatMap(login -> stockReservationRepository.deleteReturningByIdAndReservedBy(id, login))
+            );
+    }
+
+    private Mono<Long> restore(Long productId, Integer stripe, Integer quantity) {
+        if (stripe == null) {
+            return productRepository.incrementStock(productId, quantity);
+        }
+        // The stripe is gone if the product was restriped since the reservation: its items go to the product row
+        return productRepository
+            .incrementStockStripe(productId, stripe, quantity)
+            .filter(updated -> updated > 0)
+            .switchIfEmpty(Mono.defer(() -> productRepository.incrementStock(productId, quantity)));
+    }
+
+    private record StockCounter(Long productId, Integer stripe) {}
+}
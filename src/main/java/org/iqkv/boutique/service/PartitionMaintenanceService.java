@@ -0,0 +1,83 @@
+package org.iqkv.boutique.service;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.repository.PartitionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service maintaining the monthly partitions of {@code shopping_cart} and {@code product_order}: the partitions of the
+ * coming months are created ahead, and those older than {@code application.database.partitioning.retention-months}
+ * are detached and moved to the archive schema.
+ * <p>
+ * A step which fails, for instance because another node ran it concurrently, is logged and retried on the next run.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    // The carts are attached before their lines, and archived after them, for the foreign key from the lines to the carts
+    private static final List<String> CREATION_ORDER = List.of("shopping_cart", "product_order");
+
+    private static final List<String> ARCHIVAL_ORDER = List.of("product_order", "shopping_cart");
+
+    private final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private final PartitionManager partitionManager;
+
+    private final ApplicationProperties.Database.Partitioning partitioningProperties;
+
+    public PartitionMaintenanceService(PartitionManager partitionManager, ApplicationProperties applicationProperties) {
+        this.partitionManager = partitionManager;
+        this.partitioningProperties = applicationProperties.getDatabase().getPartitioning();
+    }
+
+    /**
+     * Create the partitions of the coming months, and archive the expired ones.
+     *
+     * @return a {@link Mono} to signal the end of the maintenance.
+     */
+    @Scheduled(fixedDelayString = "${application.database.partitioning.maintenance-interval:PT6H}")
+    public Mono<Void> maintainPartitions() {
+        return maintainPartitions(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    Mono<Void> maintainPartitions(YearMonth current) {
+        Flux<Void> creations = Flux.range(0, partitioningProperties.getPremadeMonths() + 1)
+            .map(current::plusMonths)
+            .concatMap(month ->
+                partitionManager
+                    .createPartitions(month, CREATION_ORDER)
+                    .onErrorResume(e -> {
+                        log.error("Could not create the partitions of {} for {}: {}", CREATION_ORDER, month, e.getMessage());
+                        return Mono.empty();
+                    })
+            );
+        if (partitioningProperties.getRetentionMonths() <= 0) {
+            return creations.then();
+        }
+        YearMonth oldest = current.minusMonths(partitioningProperties.getRetentionMonths());
+        Flux<Void> archivals = Flux.fromIterable(ARCHIVAL_ORDER).concatMap(table ->
+            partitionManager
+                .findPartitions(table)
+                .filter(month -> month.isBefore(oldest))
+                .sort()
+                .concatMap(month ->
+                    partitionManager
+                        .archivePartition(table, month, partitioningProperties.getArchiveSchema())
+                        .doOnSuccess(v -> log.info("Archived the partition of {} for {}", table, month))
+                        .onErrorResume(e -> {
+                            log.error("Could not archive the partition of {} for {}: {}", table, month, e.getMessage());
+                            return Mono.empty();
+                        })
+                )
+        );
+        return creations.thenMany(archivals).then();
+    }
+}
@@ -88,6 +88,7 @@ public class ProductCategoryService {
      * @return the number of entities in the database.
      *
      */
+    @Transactional(readOnly = true)
     public Mono<Long> countAll() {
         return productCategoryRepository.count();
     }
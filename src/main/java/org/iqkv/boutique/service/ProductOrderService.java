@@ -87,6 +87,7 @@ public class ProductOrderService {
      *
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
     public Flux<ProductOrder> findAllWithEagerRelationships(Pageable pageable) {
         return productOrderRepository.findAllWithEagerRelationships(pageable);
     }
@@ -96,6 +97,7 @@ public class ProductOrderService {
      * @return the number of entities in the database.
      *
      */
+    @Transactional(readOnly = true)
     public Mono<Long> countAll() {
         return productOrderRepository.count();
     }
@@ -100,6 +100,7 @@ public class ProductService {
      *
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
     public Flux<Product> findAllWithEagerRelationships(Pageable pageable) {
         return productRepository.findAllWithEagerRelationships(pageable);
     }
@@ -109,6 +110,7 @@ public class ProductService {
      * @return the number of entities in the database.
      *
      */
+    @Transactional(readOnly = true)
     public Mono<Long> countAll() {
         return productRepository.count();
     }
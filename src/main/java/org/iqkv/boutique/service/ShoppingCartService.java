@@ -1,7 +1,9 @@
 package org.iqkv.boutique.service;
 
+import java.time.Instant;
 import org.iqkv.boutique.domain.ShoppingCart;
 import org.iqkv.boutique.repository.ShoppingCartRepository;
+import org.iqkv.boutique.security.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -20,8 +22,11 @@ public class ShoppingCartService {
 
     private final ShoppingCartRepository shoppingCartRepository;
 
-    public ShoppingCartService(ShoppingCartRepository shoppingCartRepository) {
+    private final CustomerDetailsService customerDetailsService;
+
+    public ShoppingCartService(ShoppingCartRepository shoppingCartRepository, CustomerDetailsService customerDetailsService) {
         this.shoppingCartRepository = shoppingCartRepository;
+        this.customerDetailsService = customerDetailsService;
     }
 
     /**
@@ -95,6 +100,7 @@ public class ShoppingCartService {
      * @return the number of entities in the database.
      *
      */
+    @Transactional(readOnly = true)
     public Mono<Long> countAll() {
         return shoppingCartRepository.count();
     }
@@ -111,6 +117,36 @@ public class ShoppingCartService {
         return shoppingCartRepository.findById(id);
     }
 
+    /**
+     * Get one shoppingCart with its lines and their products, as JSON.
+     *
+     * @param id the id of the entity.
+     * @return the JSON document of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Mono<String> findDetail(Long id) {
+        log.debug("Request to get ShoppingCart detail : {}", id);
+        return shoppingCartRepository.findDetailById(id);
+    }
+
+    /**
+     * Get a page of the shoppingCarts of the current user, most recently placed first.
+     *
+     * @param placedBefore the placed date of the last entity of the previous page, or {@code null} for the first page.
+     * @param idBefore the id of the last entity of the previous page, or {@code null} for the first page.
+     * @param size the maximum number of entities of the page.
+     * @return the entities, or none if the current user is not a customer.
+     */
+    @Transactional(readOnly = true)
+    public Flux<ShoppingCart> findPageOfCurrentUser(Instant placedBefore, Long idBefore, int size) {
+        log.debug("Request to get a page of the ShoppingCarts of the current user before : {}, {}", placedBefore, idBefore);
+        return SecurityUtils.getCurrentUserLogin()
+            .flatMap(customerDetailsService::findIdByUserLogin)
+            .flatMapMany(customerDetailsId ->
+                shoppingCartRepository.findByCustomerDetailsBefore(customerDetailsId, placedBefore, idBefore, size)
+            );
+    }
+
     /**
      * Delete the shoppingCart by id.
      *
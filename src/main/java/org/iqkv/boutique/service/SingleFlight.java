@@ -0,0 +1,51 @@
+package org.iqkv.boutique.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesce concurrent loads of the same key: while a load is in flight, the other subscribers for that key share its
+ * result instead of starting their own.
+ * <p>
+ * Nothing is cached: the key is forgotten as soon as its load completes, fails or is cancelled by all its subscribers,
+ * so the next subscriber starts a fresh load.
+ * <p>
+ * The load runs in the Reactor context of the subscriber which started it. Coalesce calls to a transactional method from
+ * outside of it, so that the subscribers share one transaction instead of each opening its own.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the loaded values.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Load the value of {@code key}, or join the load already in flight for it.
+     *
+     * @param key the key.
+     * @param loader the load to run if none is in flight for {@code key}.
+     * @return the loaded value.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, loader)));
+    }
+
+    /**
+     * Returns the number of loads in flight.
+     *
+     * @return the number of keys being loaded.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private Mono<V> share(K key, Supplier<Mono<V>> loader) {
+        AtomicReference<Mono<V>> shared = new AtomicReference<>();
+        shared.set(Mono.defer(loader).doFinally(signal -> inFlight.remove(key, shared.get())).share());
+        return shared.get();
+    }
+}
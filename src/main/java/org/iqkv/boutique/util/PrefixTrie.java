@@ -0,0 +1,69 @@
+package org.iqkv.boutique.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable trie of string prefixes, to check a string against all of them in a single pass.
+ */
+public final class PrefixTrie {
+
+    private final Node root = new Node();
+
+    private PrefixTrie(String... prefixes) {
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * Builds the trie of some prefixes.
+     *
+     * @param prefixes the prefixes.
+     * @return the trie.
+     */
+    public static PrefixTrie of(String... prefixes) {
+        return new PrefixTrie(prefixes);
+    }
+
+    /**
+     * Returns the length of the shortest prefix which starts the given string.
+     *
+     * @param value the string to check.
+     * @return the length of the prefix, or {@code -1} if the string starts with none of the prefixes.
+     */
+    public int matchedPrefixLength(String value) {
+        Node node = root;
+        for (int i = 0; i < value.length(); i++) {
+            node = node.children.get(value.charAt(i));
+            if (node == null) {
+                return -1;
+            }
+            if (node.terminal) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the given string starts with one of the prefixes.
+     *
+     * @param value the string to check.
+     * @return true if the string starts with one of the prefixes, false otherwise.
+     */
+    public boolean matchesPrefixOf(String value) {
+        return matchedPrefixLength(value) != -1;
+    }
+
+    private static final class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+
+        private boolean terminal;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Utility classes.
+ */
+package org.iqkv.boutique.util;
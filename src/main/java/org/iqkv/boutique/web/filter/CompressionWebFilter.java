@@ -0,0 +1,301 @@
+package org.iqkv.boutique.web.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compresses the responses with a policy per route: algorithm, level and minimum size, configured under
+ * {@code application.compression}.
+ * <p>
+ * Streamed responses (written with flushes, or NDJSON and server-sent events) are never buffered nor compressed, and
+ * neither are the responses already encoded, such as the precompressed static assets. The bytes saved and the time spent
+ * compressing are recorded per route under {@code http.server.compression}.
+ */
+public class CompressionWebFilter implements WebFilter {
+
+    private static final List<MediaType> STREAMING_MEDIA_TYPES = List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    // A quality of zero, which refuses a coding
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q=0(\\.0{0,3})?");
+
+    private final List<MediaType> mimeTypes;
+
+    private final List<Route> routes = new ArrayList<>();
+
+    private final Route defaultRoute;
+
+    public CompressionWebFilter(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Compression compression = applicationProperties.getCompression();
+        this.mimeTypes = MediaType.parseMediaTypes(compression.getMimeTypes());
+        ApplicationProperties.Compression.Policy defaults = compression.getDefaults();
+        for (ApplicationProperties.Compression.Route route : compression.getRoutes()) {
+            routes.add(new Route(PathPatternParser.defaultInstance.parse(route.getPattern()), route, defaults, meterRegistry));
+        }
+        this.defaultRoute = new Route(null, defaults, defaults, meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = route(request);
+        if (!route.enabled || HttpMethod.HEAD.equals(request.getMethod())) {
+            return chain.filter(exchange);
+        }
+        boolean accepted = route.algorithm.acceptedBy(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String encoding = accepted ? route.algorithm.name : null;
+        return chain.filter(exchange.mutate().response(new CompressingResponse(exchange.getResponse(), route, encoding)).build());
+    }
+
+    private Route route(ServerHttpRequest request) {
+        for (Route route : routes) {
+            if (route.pattern.matches(request.getPath().pathWithinApplication())) {
+                return route;
+            }
+        }
+        return defaultRoute;
+    }
+
+    private boolean isCompressible(HttpHeaders headers) {
+        MediaType contentType = headers.getContentType();
+        if (contentType == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        for (MediaType streaming : STREAMING_MEDIA_TYPES) {
+            if (streaming.isCompatibleWith(contentType)) {
+                return false;
+            }
+        }
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final Route route;
+
+        /**
+         * The {@code Content-Encoding} to apply, or {@code null} if the client does not accept the one of the route.
+         */
+        private final String encoding;
+
+        CompressingResponse(ServerHttpResponse delegate, Route route, String encoding) {
+            super(delegate);
+            this.route = route;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            if (!isCompressible(headers) || isBodyless()) {
+                return super.writeWith(body);
+            }
+            // The response differs on Accept-Encoding, even when it ends up not compressed
+            if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            long contentLength = headers.getContentLength();
+            if (encoding == null || (contentLength >= 0 && contentLength < route.minSize)) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                int size = buffer.readableByteCount();
+                if (size < route.minSize) {
+                    return super.writeWith(Mono.just(buffer));
+                }
+                byte[] input = new byte[size];
+                buffer.read(input);
+                DataBufferUtils.release(buffer);
+                long start = System.nanoTime();
+                byte[] output = route.algorithm.compress(input, route.level);
+                route.time.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (output.length >= input.length) {
+                    return super.writeWith(Mono.just(bufferFactory().wrap(input)));
+                }
+                route.input.increment(input.length);
+                route.output.increment(output.length);
+                route.saved.increment(input.length - output.length);
+                headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+                headers.setContentLength(output.length);
+                return super.writeWith(Mono.just(bufferFactory().wrap(output)));
+            });
+        }
+
+        // writeAndFlushWith() is left to the delegate: flushed responses are streamed, never buffered
+
+        private boolean isBodyless() {
+            return HttpStatus.NO_CONTENT.equals(getStatusCode()) || HttpStatus.NOT_MODIFIED.equals(getStatusCode());
+        }
+    }
+
+    private static final class Route {
+
+        private final PathPattern pattern;
+
+        private final boolean enabled;
+
+        private final Algorithm algorithm;
+
+        private final int level;
+
+        private final int minSize;
+
+        private final Counter input;
+
+        private final Counter output;
+
+        private final Counter saved;
+
+        private final Timer time;
+
+        Route(
+            PathPattern pattern,
+            ApplicationProperties.Compression.Policy policy,
+            ApplicationProperties.Compression.Policy defaults,
+            MeterRegistry meterRegistry
+        ) {
+            this.pattern = pattern;
+            this.enabled = Objects.requireNonNullElse(policy.getEnabled(), defaults.getEnabled());
+            this.algorithm = Algorithm.of(Objects.requireNonNullElse(policy.getAlgorithm(), defaults.getAlgorithm()));
+            this.level = Objects.requireNonNullElse(policy.getLevel(), defaults.getLevel());
+            this.minSize = Objects.requireNonNullElse(policy.getMinSize(), defaults.getMinSize());
+            String tag = pattern == null ? "default" : pattern.getPatternString();
+            this.input = Counter.builder("http.server.compression.input")
+                .description("Size of the response bodies before compression")
+                .baseUnit("bytes")
+                .tag("route", tag)
+                .register(meterRegistry);
+            this.output = Counter.builder("http.server.compression.output")
+                .description("Size of the response bodies after compression")
+                .baseUnit("bytes")
+                .tag("route", tag)
+                .register(meterRegistry);
+            this.saved = Counter.builder("http.server.compression.saved")
+                .description("Bytes saved by compressing the response bodies")
+                .baseUnit("bytes")
+                .tag("route", tag)
+                .register(meterRegistry);
+            this.time = Timer.builder("http.server.compression")
+                .description("Time spent compressing the response bodies")
+                .tag("route", tag)
+                .register(meterRegistry);
+        }
+    }
+
+    private enum Algorithm {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String name;
+
+        Algorithm(String name) {
+            this.name = name;
+        }
+
+        static Algorithm of(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.name.equalsIgnoreCase(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported compression algorithm: " + name);
+        }
+
+        boolean acceptedBy(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return false;
+            }
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if ((parts[0].trim().equalsIgnoreCase(name) || parts[0].trim().equals("*")) && !isRefused(parts)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        byte[] compress(byte[] input, int level) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(input.length / 2);
+            try (OutputStream out = this == GZIP ? new LevelGzipOutputStream(bytes, level) : new LevelDeflaterOutputStream(bytes, level)) {
+                out.write(input);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static boolean isRefused(String[] parts) {
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (ZERO_QUALITY.matcher(parameter).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A {@link GZIPOutputStream} compressing at the configured level.
+     */
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+
+        LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+
+    /**
+     * A zlib {@link DeflaterOutputStream} compressing at the configured level, releasing its deflater when closed.
+     */
+    private static final class LevelDeflaterOutputStream extends DeflaterOutputStream {
+
+        LevelDeflaterOutputStream(OutputStream out, int level) {
+            super(out, new Deflater(level));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.iqkv.boutique.web.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.iqkv.boutique.domain.IdempotencyKey;
+import org.iqkv.boutique.service.IdempotencyConflictException;
+import org.iqkv.boutique.service.IdempotencyKeyMismatchException;
+import org.iqkv.boutique.service.IdempotencyService;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Process a {@code POST} API request carrying an {@code Idempotency-Key} header at most once, and replay its response to
+ * the retries of the same user.
+ * <p>
+ * Server errors are not recorded, so that the request can be retried. A retry sent while the first request is still
+ * being processed waits for its response, up to {@code application.idempotency.wait-timeout}, then gets a
+ * {@code 409 (Conflict)}. A retry with another body than the first request gets a {@code 422 (Unprocessable Entity)}.
+ * <p>
+ * The bodies are held in memory up to {@code spring.codec.max-in-memory-size}: a larger request gets a
+ * {@code 413 (Payload Too Large)}, and a larger response is written without being recorded.
+ */
+@Component
+public class IdempotencyWebFilter implements WebFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private final IdempotencyService idempotencyService;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxInMemorySize;
+
+    public IdempotencyWebFilter(
+        IdempotencyService idempotencyService,
+        ObjectMapper objectMapper,
+        @Value("${spring.codec.max-in-memory-size:256KB}") DataSize maxInMemorySize
+    ) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.maxInMemorySize = (int) maxInMemorySize.toBytes();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = request.getHeaders().getFirst(IDEMPOTENCY_KEY);
+        String path = request.getPath().value();
+        if (
+            !HttpMethod.POST.equals(request.getMethod()) ||
+            !path.startsWith("/api/") ||
+            !StringUtils.hasText(key) ||
+            key.length() > MAX_KEY_LENGTH
+        ) {
+            return chain.filter(exchange);
+        }
+        // The body is read ahead, to be compared with the one of the first request
+        return DataBufferUtils.join(request.getBody(), maxInMemorySize)
+            .onErrorMap(DataBufferLimitException.class, e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage()))
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .defaultIfEmpty(new byte[0])
+            .flatMap(body -> {
+                ServerWebExchange bodyExchange = exchange.mutate().request(new ReadBodyRequest(request, body)).build();
+                return bodyExchange
+                    .getPrincipal()
+                    .map(Principal::getName)
+                    .defaultIfEmpty("")
+                    .flatMap(
+                        principal ->
+                            idempotencyService.execute(
+                                hash(String.join("\n", principal, path, key).getBytes(StandardCharsets.UTF_8)),
+                                hash(body),
+                                () -> record(bodyExchange, chain)
+                            )
+                    )
+                    .flatMap(recorded -> replay(bodyExchange, recorded));
+            })
+            .onErrorMap(IdempotencyConflictException.class, e -> new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage()))
+            .onErrorMap(
+                IdempotencyKeyMismatchException.class,
+                e -> new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage())
+            );
+    }
+
+    private Mono<IdempotencyKey> record(ServerWebExchange exchange, WebFilterChain chain) {
+        RecordingResponse response = new RecordingResponse(exchange.getResponse());
+        return chain.filter(exchange.mutate().response(response).build()).then(Mono.fromCallable(response::toIdempotencyKey));
+    }
+
+    private Mono<Void> replay(ServerWebExchange exchange, IdempotencyKey recorded) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(recorded.getResponseStatus()));
+        if (recorded.getResponseHeaders() != null) {
+            try {
+                response.getHeaders().putAll(objectMapper.readValue(recorded.getResponseHeaders(), HEADERS_TYPE));
+            } catch (JsonProcessingException e) {
+                return Mono.error(e);
+            }
+        }
+        response.getHeaders().set(IDEMPOTENT_REPLAYED, "true");
+        byte[] body = recorded.getResponseBody();
+        if (body == null || body.length == 0) {
+            return response.setComplete();
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isReplayedHeader(String name) {
+        return (
+            HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) ||
+            HttpHeaders.LOCATION.equalsIgnoreCase(name) ||
+            name.regionMatches(true, 0, "X-", 0, 2)
+        );
+    }
+
+    /**
+     * Give the body read ahead to the rest of the chain.
+     */
+    private static class ReadBodyRequest extends ServerHttpRequestDecorator {
+
+        private final byte[] body;
+
+        ReadBodyRequest(ServerHttpRequest delegate, byte[] body) {
+            super(delegate);
+            this.body = body;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        }
+    }
+
+    /**
+     * Keep a copy of the response body while it is written, unless it gets larger than the in-memory limit.
+     */
+    private class RecordingResponse extends ServerHttpResponseDecorator {
+
+        private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private boolean recordable = true;
+
+        RecordingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(this::copy));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Streamed responses are not recorded
+            recordable = false;
+            return super.writeAndFlushWith(body);
+        }
+
+        private void copy(DataBuffer buffer) {
+            int length = buffer.readableByteCount();
+            if (!recordable || (maxInMemorySize >= 0 && body.size() + length > maxInMemorySize)) {
+                // Too large responses are not recorded
+                recordable = false;
+                body = null;
+                return;
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            buffer.toByteBuffer(buffer.readPosition(), bytes, 0, length);
+            body.write(bytes.array(), 0, length);
+        }
+
+        IdempotencyKey toIdempotencyKey() throws JsonProcessingException {
+            HttpStatusCode status = getStatusCode() != null ? getStatusCode() : HttpStatus.OK;
+            if (!recordable || status.is5xxServerError()) {
+                return null;
+            }
+            Map<String, List<String>> headers = getHeaders()
+                .entrySet()
+                .stream()
+                .filter(header -> isReplayedHeader(header.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+            return new IdempotencyKey()
+                .responseStatus(status.value())
+                .responseHeaders(objectMapper.writeValueAsString(headers))
+                .responseBody(body.toByteArray());
+        }
+    }
+}
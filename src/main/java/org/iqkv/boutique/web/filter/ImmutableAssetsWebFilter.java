@@ -0,0 +1,45 @@
+package org.iqkv.boutique.web.filter;
+
+import java.util.regex.Pattern;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mark the assets whose name contains a content hash, as emitted by the webpack build, as cacheable forever: a new
+ * version of an asset always gets a new name.
+ */
+public class ImmutableAssetsWebFilter implements WebFilter {
+
+    public static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final Pattern CONTENT_HASHED = Pattern.compile(".*\\.[0-9a-f]{8,}(\\.chunk)?\\.(js|css)");
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        if (!HttpMethod.GET.equals(exchange.getRequest().getMethod()) || !isContentHashed(path)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status == null || status.is2xxSuccessful() || status.isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                response.getHeaders().setCacheControl(IMMUTABLE_CACHE_CONTROL);
+                response.getHeaders().remove("Pragma");
+                response.getHeaders().remove("Expires");
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    static boolean isContentHashed(String path) {
+        return (path.endsWith(".js") || path.endsWith(".css")) && CONTENT_HASHED.matcher(path).matches();
+    }
+}
@@ -1,5 +1,11 @@
 package org.iqkv.boutique.web.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.time.Instant;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.service.SingleFlight;
 import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
@@ -12,14 +18,28 @@ import reactor.core.publisher.Mono;
 
 /**
  * Refresh oauth2 tokens based on TokenRelayGatewayFilterFactory.
+ * <p>
+ * The expiry of the access token of each user is remembered, so that the authorized client is only looked up when the
+ * token is about to expire, within {@code application.token-refresh.skew}. Concurrent requests of the same user share a
+ * single refresh.
  */
 @Component
 public class OAuth2ReactiveRefreshTokensWebFilter implements WebFilter {
 
     private final ReactiveOAuth2AuthorizedClientManager clientManager;
 
-    public OAuth2ReactiveRefreshTokensWebFilter(ReactiveOAuth2AuthorizedClientManager clientManager) {
+    private final Duration skew;
+
+    private final Cache<String, Instant> expiries = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private final SingleFlight<String, OAuth2AuthorizedClient> refreshes = new SingleFlight<>();
+
+    public OAuth2ReactiveRefreshTokensWebFilter(
+        ReactiveOAuth2AuthorizedClientManager clientManager,
+        ApplicationProperties applicationProperties
+    ) {
         this.clientManager = clientManager;
+        this.skew = applicationProperties.getTokenRefresh().getSkew();
     }
 
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
@@ -27,11 +47,26 @@ public class OAuth2ReactiveRefreshTokensWebFilter implements WebFilter {
             .getPrincipal()
             .filter(principal -> principal instanceof OAuth2AuthenticationToken)
             .cast(OAuth2AuthenticationToken.class)
-            .flatMap(authentication -> authorizedClient(exchange, authentication))
+            .flatMap(authentication -> {
+                // Authorized clients are stored by registration and principal name
+                String key = authentication.getAuthorizedClientRegistrationId() + ":" + authentication.getName();
+                Instant expiresAt = expiries.getIfPresent(key);
+                if (expiresAt != null && Instant.now().plus(skew).isBefore(expiresAt)) {
+                    return Mono.empty();
+                }
+                return refreshes
+                    .execute(key, () -> authorizedClient(exchange, authentication))
+                    .doOnNext(client -> expiries.put(key, expiresAt(client)));
+            })
             .thenReturn(exchange)
             .flatMap(chain::filter);
     }
 
+    private static Instant expiresAt(OAuth2AuthorizedClient client) {
+        Instant expiresAt = client.getAccessToken().getExpiresAt();
+        return expiresAt != null ? expiresAt : Instant.MAX;
+    }
+
     private Mono<OAuth2AuthorizedClient> authorizedClient(ServerWebExchange exchange, OAuth2AuthenticationToken oauth2Authentication) {
         String clientRegistrationId = oauth2Authentication.getAuthorizedClientRegistrationId();
         OAuth2AuthorizeRequest request = OAuth2AuthorizeRequest.withClientRegistrationId(clientRegistrationId)
@@ -0,0 +1,57 @@
+package org.iqkv.boutique.web.filter;
+
+import org.iqkv.boutique.util.PrefixTrie;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+
+/**
+ * Classify request paths between the routes of the client application, the routes handled by the server, and the static
+ * resources, with precompiled prefix tries.
+ */
+public final class RouteClassifier {
+
+    /**
+     * Prefixes of the paths handled by the server, never forwarded to the client application.
+     */
+    private static final PrefixTrie SERVER_ROUTES = PrefixTrie.of("/api", "/management", "/v3/api-docs", "/login", "/oauth2");
+
+    /**
+     * Directories of the static resources, served without going through Spring Security.
+     */
+    private static final PrefixTrie STATIC_RESOURCES = PrefixTrie.of("/app", "/i18n", "/content", "/swagger-ui");
+
+    private RouteClassifier() {}
+
+    /**
+     * Checks if a path is a route of the client application: an absolute path, not handled by the server, and without a
+     * period.
+     *
+     * @param path the request path.
+     * @return true if the path must be answered with the client {@code index.html}, false otherwise.
+     */
+    public static boolean isClientRoute(String path) {
+        return !path.isEmpty() && path.charAt(0) == '/' && path.indexOf('.') == -1 && !SERVER_ROUTES.matchesPrefixOf(path);
+    }
+
+    /**
+     * Checks if a path is in one of the static resources directories, or is one of these directories.
+     *
+     * @param path the request path.
+     * @return true if the path is a static resource, false otherwise.
+     */
+    public static boolean isStaticResource(String path) {
+        int length = STATIC_RESOURCES.matchedPrefixLength(path);
+        return length != -1 && (length == path.length() || path.charAt(length) == '/');
+    }
+
+    /**
+     * Returns a matcher of the requests which are not for static resources.
+     *
+     * @return the matcher.
+     */
+    public static ServerWebExchangeMatcher notStaticResources() {
+        return exchange ->
+            isStaticResource(exchange.getRequest().getPath().pathWithinApplication().value())
+                ? ServerWebExchangeMatcher.MatchResult.notMatch()
+                : ServerWebExchangeMatcher.MatchResult.match();
+    }
+}
@@ -1,5 +1,14 @@
 package org.iqkv.boutique.web.filter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
@@ -7,23 +16,49 @@ import reactor.core.publisher.Mono;
 
 public class SpaWebFilter implements WebFilter {
 
+    private static final MediaType TEXT_HTML_UTF8 = MediaType.parseMediaType("text/html;charset=UTF-8");
+
+    /**
+     * The client {@code index.html}, or {@code null} if it was not built into the classpath.
+     */
+    private final byte[] indexHtml;
+
+    public SpaWebFilter() {
+        this(new ClassPathResource("static/index.html"));
+    }
+
+    SpaWebFilter(Resource indexHtml) {
+        this.indexHtml = read(indexHtml);
+    }
+
     /**
      * Forwards any unmapped paths (except those containing a period) to the client {@code index.html}.
+     * <p>
+     * {@code GET} requests are answered directly with a copy of {@code index.html} kept in memory.
      */
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        String path = exchange.getRequest().getURI().getPath();
-        if (
-            !path.startsWith("/api") &&
-            !path.startsWith("/management") &&
-            !path.startsWith("/v3/api-docs") &&
-            !path.startsWith("/login") &&
-            !path.startsWith("/oauth2") &&
-            !path.contains(".") &&
-            path.matches("/(.*)")
-        ) {
-            return chain.filter(exchange.mutate().request(exchange.getRequest().mutate().path("/index.html").build()).build());
+        if (!RouteClassifier.isClientRoute(exchange.getRequest().getURI().getPath())) {
+            return chain.filter(exchange);
+        }
+        if (indexHtml != null && HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.getHeaders().setContentType(TEXT_HTML_UTF8);
+            response.getHeaders().setContentLength(indexHtml.length);
+            response.getHeaders().setCacheControl(CacheControl.noCache());
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(indexHtml)));
+        }
+        return chain.filter(exchange.mutate().request(exchange.getRequest().mutate().path("/index.html").build()).build());
+    }
+
+    private static byte[] read(Resource resource) {
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream inputStream = resource.getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return chain.filter(exchange);
     }
 }
@@ -0,0 +1,60 @@
+package org.iqkv.boutique.web.filter;
+
+import java.time.Duration;
+import org.iqkv.boutique.aop.routing.WriteMarker;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Carry the time of the last write of a client in a short-lived cookie, so that its reads are routed to the primary
+ * database for the stickiness after a write, whichever node serves them.
+ *
+ * @see org.iqkv.boutique.aop.routing.TransactionRoutingAspect
+ */
+public class WriteMarkerWebFilter implements WebFilter {
+
+    public static final String WROTE_AT_COOKIE = "wrote-at";
+
+    private final Duration stickiness;
+
+    public WriteMarkerWebFilter(Duration stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        WriteMarker marker = new WriteMarker(wroteAt(exchange.getRequest().getCookies().getFirst(WROTE_AT_COOKIE)));
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            if (marker.isUpdated()) {
+                response.addCookie(
+                    ResponseCookie.from(WROTE_AT_COOKIE, Long.toString(marker.getWroteAt()))
+                        .path("/")
+                        .maxAge(stickiness)
+                        .httpOnly(true)
+                        .secure(exchange.getRequest().getSslInfo() != null)
+                        .sameSite("Lax")
+                        .build()
+                );
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange).contextWrite(context -> context.put(WriteMarker.class, marker));
+    }
+
+    private static long wroteAt(HttpCookie cookie) {
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
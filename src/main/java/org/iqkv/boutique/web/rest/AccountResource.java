@@ -1,21 +1,37 @@
 package org.iqkv.boutique.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import org.iqkv.boutique.domain.ShoppingCart;
+import org.iqkv.boutique.security.AuthorityRegistry;
 import org.iqkv.boutique.security.SecurityUtils;
+import org.iqkv.boutique.service.ShoppingCartService;
+import org.iqkv.boutique.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -24,6 +40,15 @@ public class AccountResource {
 
     private final Logger log = LoggerFactory.getLogger(AccountResource.class);
 
+    // Keys are the tokens and principals, compared by identity: a refreshed token or a new session gets a new entry
+    private final Cache<Object, CachedAccount> accounts = Caffeine.newBuilder().weakKeys().maximumSize(10_000).build();
+
+    private static final int MAX_CARTS_PAGE_SIZE = 100;
+
+    private final ObjectMapper objectMapper;
+
+    private final ShoppingCartService shoppingCartService;
+
     private static class AccountResourceException extends RuntimeException {
 
         private static final long serialVersionUID = 1L;
@@ -33,17 +58,33 @@ public class AccountResource {
         }
     }
 
+    public AccountResource(ObjectMapper objectMapper, ShoppingCartService shoppingCartService) {
+        this.objectMapper = objectMapper;
+        this.shoppingCartService = shoppingCartService;
+    }
+
     /**
      * {@code GET  /account} : get the current user.
+     * <p>
+     * The response is serialized once per token or session, and carries an {@code ETag} so that the client can revalidate
+     * it with {@code If-None-Match}.
      *
      * @param principal the current user; resolves to {@code null} if not authenticated.
-     * @return the current user.
+     * @return the current user, or with status {@code 304 (Not Modified)} if it did not change.
      * @throws AccountResourceException {@code 500 (Internal Server Error)} if the user couldn't be returned.
      */
     @GetMapping("/account")
-    public Mono<UserVM> getAccount(Principal principal) {
-        if (principal instanceof AbstractAuthenticationToken) {
-            return Mono.just(getUserFromAuthentication((AbstractAuthenticationToken) principal));
+    public Mono<ResponseEntity<byte[]>> getAccount(Principal principal) {
+        if (principal instanceof AbstractAuthenticationToken authToken) {
+            CachedAccount account = accounts.get(cacheKey(authToken), key -> serialize(getUserFromAuthentication(authToken)));
+            // The ETag is checked against If-None-Match by the framework, which answers 304 when it matches
+            return Mono.just(
+                ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag(account.etag())
+                    .body(account.body())
+            );
         } else {
             throw new AccountResourceException("User could not be found");
         }
@@ -61,6 +102,49 @@ public class AccountResource {
         return request.getPrincipal().map(Principal::getName);
     }
 
+    /**
+     * {@code GET  /account/carts} : get the shoppingCarts of the current user, most recently placed first.
+     * <p>
+     * The pages are chained by the placed date and id of their last cart, given by the {@code next} link of the previous
+     * page, so that each of them is read from the index of the carts of the customer rather than skipped over.
+     *
+     * @param size the maximum number of carts of the page.
+     * @param placedBefore the placed date of the last cart of the previous page, none for the first page.
+     * @param idBefore the id of the last cart of the previous page, none for the first page.
+     * @param request the HTTP request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shoppingCarts in body, with a {@code Link} header to the next page if there may be one.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if only one of {@code placedBefore} and {@code idBefore} is given.
+     */
+    @GetMapping("/account/carts")
+    public Mono<ResponseEntity<List<ShoppingCart>>> getAccountCarts(
+        @RequestParam(name = "size", defaultValue = "20") int size,
+        @RequestParam(name = "placedBefore", required = false) Instant placedBefore,
+        @RequestParam(name = "idBefore", required = false) Long idBefore,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of the ShoppingCarts of the current user before : {}, {}", placedBefore, idBefore);
+        if ((placedBefore == null) != (idBefore == null)) {
+            throw new BadRequestAlertException("placedBefore and idBefore must be given together", "shoppingCart", "cursorinvalid");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_CARTS_PAGE_SIZE));
+        return shoppingCartService
+            .findPageOfCurrentUser(placedBefore, idBefore, pageSize)
+            .collectList()
+            .map(carts -> {
+                HttpHeaders headers = new HttpHeaders();
+                if (carts.size() == pageSize) {
+                    ShoppingCart last = carts.get(carts.size() - 1);
+                    String next = UriComponentsBuilder.fromUri(request.getURI())
+                        .replaceQueryParam("size", pageSize)
+                        .replaceQueryParam("placedBefore", last.getPlacedDate())
+                        .replaceQueryParam("idBefore", last.getId())
+                        .toUriString();
+                    headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                }
+                return ResponseEntity.ok().headers(headers).body(carts);
+            });
+    }
+
     private static class UserVM {
 
         private String login;
@@ -91,6 +175,21 @@ public class AccountResource {
         }
     }
 
+    private record CachedAccount(byte[] body, String etag) {}
+
+    private CachedAccount serialize(UserVM user) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(user);
+            return new CachedAccount(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new AccountResourceException("User could not be serialized");
+        }
+    }
+
+    private static Object cacheKey(AbstractAuthenticationToken authToken) {
+        return authToken instanceof JwtAuthenticationToken jwtAuthToken ? jwtAuthToken.getToken() : authToken.getPrincipal();
+    }
+
     private static UserVM getUserFromAuthentication(AbstractAuthenticationToken authToken) {
         Map<String, Object> attributes;
         if (authToken instanceof JwtAuthenticationToken) {
@@ -103,7 +202,7 @@ public class AccountResource {
 
         return new UserVM(
             authToken.getName(),
-            authToken.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()),
+            AuthorityRegistry.of(authToken).names(),
             SecurityUtils.extractDetailsFromTokenAttributes(attributes)
         );
     }
@@ -9,6 +9,7 @@ import java.util.Objects;
 import org.iqkv.boutique.domain.CustomerDetails;
 import org.iqkv.boutique.repository.CustomerDetailsRepository;
 import org.iqkv.boutique.service.CustomerDetailsService;
+import org.iqkv.boutique.service.SingleFlight;
 import org.iqkv.boutique.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +44,8 @@ public class CustomerDetailsResource {
 
     private final CustomerDetailsService customerDetailsService;
 
+    private final SingleFlight<Long, CustomerDetails> findOneFlight = new SingleFlight<>();
+
     private final CustomerDetailsRepository customerDetailsRepository;
 
     public CustomerDetailsResource(CustomerDetailsService customerDetailsService, CustomerDetailsRepository customerDetailsRepository) {
@@ -196,6 +199,8 @@ public class CustomerDetailsResource {
 
     /**
      * {@code GET  /customer-details/:id} : get the "id" customerDetails.
+     * <p>
+     * Concurrent requests for the same id share a single read, and so a single transaction.
      *
      * @param id the id of the customerDetails to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the customerDetails, or with status {@code 404 (Not Found)}.
@@ -203,7 +208,7 @@ public class CustomerDetailsResource {
     @GetMapping("/{id}")
     public Mono<ResponseEntity<CustomerDetails>> getCustomerDetails(@PathVariable("id") Long id) {
         log.debug("REST request to get CustomerDetails : {}", id);
-        Mono<CustomerDetails> customerDetails = customerDetailsService.findOne(id);
+        Mono<CustomerDetails> customerDetails = findOneFlight.execute(id, () -> customerDetailsService.findOne(id));
         return ResponseUtil.wrapOrNotFound(customerDetails);
     }
 
@@ -9,6 +9,7 @@ import java.util.Objects;
 import org.iqkv.boutique.domain.ProductCategory;
 import org.iqkv.boutique.repository.ProductCategoryRepository;
 import org.iqkv.boutique.service.ProductCategoryService;
+import org.iqkv.boutique.service.SingleFlight;
 import org.iqkv.boutique.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +44,8 @@ public class ProductCategoryResource {
 
     private final ProductCategoryService productCategoryService;
 
+    private final SingleFlight<Long, ProductCategory> findOneFlight = new SingleFlight<>();
+
     private final ProductCategoryRepository productCategoryRepository;
 
     public ProductCategoryResource(ProductCategoryService productCategoryService, ProductCategoryRepository productCategoryRepository) {
@@ -194,6 +197,8 @@ public class ProductCategoryResource {
 
     /**
      * {@code GET  /product-categories/:id} : get the "id" productCategory.
+     * <p>
+     * Concurrent requests for the same id share a single read, and so a single transaction.
      *
      * @param id the id of the productCategory to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productCategory, or with status {@code 404 (Not Found)}.
@@ -201,7 +206,7 @@ public class ProductCategoryResource {
     @GetMapping("/{id}")
     public Mono<ResponseEntity<ProductCategory>> getProductCategory(@PathVariable("id") Long id) {
         log.debug("REST request to get ProductCategory : {}", id);
-        Mono<ProductCategory> productCategory = productCategoryService.findOne(id);
+        Mono<ProductCategory> productCategory = findOneFlight.execute(id, () -> productCategoryService.findOne(id));
         return ResponseUtil.wrapOrNotFound(productCategory);
     }
 
@@ -6,9 +6,13 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
+import org.iqkv.boutique.config.ApplicationProperties;
 import org.iqkv.boutique.domain.Product;
 import org.iqkv.boutique.repository.ProductRepository;
+import org.iqkv.boutique.security.AuthoritiesConstants;
+import org.iqkv.boutique.service.InventoryService;
 import org.iqkv.boutique.service.ProductService;
+import org.iqkv.boutique.service.SingleFlight;
 import org.iqkv.boutique.web.rest.errors.BadRequestAlertException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +23,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.ForwardedHeaderUtils;
@@ -43,11 +48,24 @@ public class ProductResource {
 
     private final ProductService productService;
 
+    private final SingleFlight<Long, Product> findOneFlight = new SingleFlight<>();
+
     private final ProductRepository productRepository;
 
-    public ProductResource(ProductService productService, ProductRepository productRepository) {
+    private final InventoryService inventoryService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductResource(
+        ProductService productService,
+        ProductRepository productRepository,
+        InventoryService inventoryService,
+        ApplicationProperties applicationProperties
+    ) {
         this.productService = productService;
         this.productRepository = productRepository;
+        this.inventoryService = inventoryService;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -195,6 +213,8 @@ public class ProductResource {
 
     /**
      * {@code GET  /products/:id} : get the "id" product.
+     * <p>
+     * Concurrent requests for the same id share a single read, and so a single transaction.
      *
      * @param id the id of the product to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product, or with status {@code 404 (Not Found)}.
@@ -202,10 +222,62 @@ public class ProductResource {
     @GetMapping("/{id}")
     public Mono<ResponseEntity<Product>> getProduct(@PathVariable("id") Long id) {
         log.debug("REST request to get Product : {}", id);
-        Mono<Product> product = productService.findOne(id);
+        Mono<Product> product = findOneFlight.execute(id, () -> productService.findOne(id));
         return ResponseUtil.wrapOrNotFound(product);
     }
 
+    /**
+     * {@code GET  /products/:id/stock} : get the stock available for reservation of the "id" product.
+     *
+     * @param id the id of the product.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the available stock, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/stock")
+    public Mono<ResponseEntity<Integer>> getProductStock(@PathVariable("id") Long id) {
+        log.debug("REST request to get the stock of Product : {}", id);
+        return ResponseUtil.wrapOrNotFound(inventoryService.findAvailableStock(id));
+    }
+
+    /**
+     * {@code POST  /products/:id/stock} : add items to the stock of the "id" product.
+     *
+     * @param id the id of the product.
+     * @param quantity the number of items to add.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the available stock, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/{id}/stock")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<Integer>> addProductStock(@PathVariable("id") Long id, @RequestParam("quantity") Integer quantity) {
+        log.debug("REST request to add {} to the stock of Product : {}", quantity, id);
+        if (quantity <= 0) {
+            throw new BadRequestAlertException("Invalid quantity", ENTITY_NAME, "quantityinvalid");
+        }
+        return ResponseUtil.wrapOrNotFound(inventoryService.addStock(id, quantity));
+    }
+
+    /**
+     * {@code PUT  /products/:id/stock-stripes} : spread the stock of the "id" product over several stripes, for products
+     * reserved by many concurrent checkouts.
+     *
+     * @param id the id of the product.
+     * @param stripes the number of stripes, {@code 1} to move the stock back to the product itself.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the available stock, or with status {@code 404 (Not Found)}.
+     */
+    @PutMapping("/{id}/stock-stripes")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<Integer>> restripeProductStock(
+        @PathVariable("id") Long id,
+        @RequestParam(name = "stripes", required = false) Integer stripes
+    ) {
+        log.debug("REST request to stripe the stock of Product : {}, {}", id, stripes);
+        if (stripes != null && stripes < 1) {
+            throw new BadRequestAlertException("Invalid stripes", ENTITY_NAME, "stripesinvalid");
+        }
+        return ResponseUtil.wrapOrNotFound(
+            inventoryService.restripe(id, stripes != null ? stripes : applicationProperties.getInventory().getStripes())
+        );
+    }
+
     /**
      * {@code DELETE  /products/:id} : delete the "id" product.
      *
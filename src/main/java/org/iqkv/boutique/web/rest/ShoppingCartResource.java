@@ -192,6 +192,20 @@ public class ShoppingCartResource {
         return ResponseUtil.wrapOrNotFound(shoppingCart);
     }
 
+    /**
+     * {@code GET  /shopping-carts/:id/detail} : get the "id" shoppingCart with its lines and their products.
+     * <p>
+     * The body is assembled by the database and written as is, the products without their images.
+     *
+     * @param id the id of the shoppingCart to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the shoppingCart detail, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/{id}/detail", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<String>> getShoppingCartDetail(@PathVariable("id") Long id) {
+        log.debug("REST request to get ShoppingCart detail : {}", id);
+        return ResponseUtil.wrapOrNotFound(shoppingCartService.findDetail(id));
+    }
+
     /**
      * {@code DELETE  /shopping-carts/:id} : delete the "id" shoppingCart.
      *
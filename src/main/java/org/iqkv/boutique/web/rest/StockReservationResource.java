@@ -0,0 +1,99 @@
+package org.iqkv.boutique.web.rest;
+
+import jakarta.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.iqkv.boutique.domain.StockReservation;
+import org.iqkv.boutique.service.InsufficientStockException;
+import org.iqkv.boutique.service.InventoryService;
+import org.iqkv.boutique.web.rest.errors.BadRequestAlertException;
+import org.iqkv.boutique.web.rest.vm.StockReservationVM;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.reactive.ResponseUtil;
+
+/**
+ * REST controller for managing {@link org.iqkv.boutique.domain.StockReservation}.
+ */
+@RestController
+@RequestMapping("/api/stock-reservations")
+public class StockReservationResource {
+
+    private final Logger log = LoggerFactory.getLogger(StockReservationResource.class);
+
+    private static final String ENTITY_NAME = "stockReservation";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final InventoryService inventoryService;
+
+    public StockReservationResource(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * {@code POST  /stock-reservations} : Reserve items of a product.
+     *
+     * @param stockReservationVM the product and quantity to reserve.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new reservation, or with status {@code 400 (Bad Request)} if there is not enough stock left.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("")
+    public Mono<ResponseEntity<StockReservation>> createStockReservation(@Valid @RequestBody StockReservationVM stockReservationVM)
+        throws URISyntaxException {
+        log.debug("REST request to save StockReservation : {}", stockReservationVM);
+        return inventoryService
+            .reserve(stockReservationVM.productId(), stockReservationVM.quantity())
+            .onErrorMap(
+                InsufficientStockException.class,
+                e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "insufficientstock")
+            )
+            .map(result -> {
+                try {
+                    return ResponseEntity.created(new URI("/api/stock-reservations/" + result.getId()))
+                        .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                        .body(result);
+                } catch (URISyntaxException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+    }
+
+    /**
+     * {@code POST  /stock-reservations/:id/confirm} : Confirm the "id" reservation of the current user, its items leave the stock for good.
+     *
+     * @param id the id of the reservation to confirm.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the confirmed reservation, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/{id}/confirm")
+    public Mono<ResponseEntity<StockReservation>> confirmStockReservation(@PathVariable("id") Long id) {
+        log.debug("REST request to confirm StockReservation : {}", id);
+        return ResponseUtil.wrapOrNotFound(inventoryService.confirm(id));
+    }
+
+    /**
+     * {@code DELETE  /stock-reservations/:id} : Release the "id" reservation of the current user, its items go back to the stock.
+     *
+     * @param id the id of the reservation to release.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status {@code 404 (Not Found)}.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteStockReservation(@PathVariable("id") Long id) {
+        log.debug("REST request to release StockReservation : {}", id);
+        return inventoryService
+            .release(id)
+            .map(
+                released ->
+                    ResponseEntity.noContent()
+                        .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
+                        .<Void>build()
+            )
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
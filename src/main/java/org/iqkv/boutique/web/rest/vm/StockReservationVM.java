@@ -0,0 +1,12 @@
+package org.iqkv.boutique.web.rest.vm;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * View Model of a request to reserve items of a product; the rest of the reservation is set by the server.
+ */
+public record StockReservationVM(
+    @NotNull(message = "must not be null") Long productId,
+    @NotNull(message = "must not be null") @Min(value = 1) Integer quantity
+) {}
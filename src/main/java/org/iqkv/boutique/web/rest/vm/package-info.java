@@ -0,0 +1,4 @@
+/**
+ * Rest layer visual models.
+ */
+package org.iqkv.boutique.web.rest.vm;
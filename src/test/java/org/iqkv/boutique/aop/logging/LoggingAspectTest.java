@@ -0,0 +1,110 @@
+package org.iqkv.boutique.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.time.Duration;
+import java.util.List;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the sampled mode of the {@link LoggingAspect}.
+ */
+class LoggingAspectTest {
+
+    private static final String SERVICE = "org.iqkv.boutique.service.ProductService";
+
+    private final ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SERVICE);
+
+    private LoggingAspect loggingAspect;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMethodLogging().setSampled(true);
+        applicationProperties.getMethodLogging().setServiceSampleRate(1);
+        applicationProperties.getMethodLogging().setRepositorySampleRate(0);
+        applicationProperties.getMethodLogging().setMaxLength(20);
+        loggingAspect = new LoggingAspect(new MockEnvironment(), applicationProperties);
+        listAppender.start();
+        logger.addAppender(listAppender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(listAppender);
+    }
+
+    @Test
+    void testMonoIsTimedUntilCompletion() throws Throwable {
+        Mono<String> result = Mono.delay(Duration.ofMillis(100)).thenReturn("product");
+
+        Object proceeded = loggingAspect.logAround(joinPoint(SERVICE, result, "id"));
+
+        assertThat(listAppender.list).isEmpty();
+        assertThat(((Mono<?>) proceeded).block()).isEqualTo("product");
+        assertThat(listAppender.list).hasSize(1);
+        List<Object> arguments = List.of(listAppender.list.get(0).getArgumentArray());
+        assertThat(arguments.get(0)).isEqualTo("findOne");
+        assertThat((Long) arguments.get(1)).isGreaterThanOrEqualTo(100);
+        assertThat(arguments.get(3)).hasToString("[id]");
+        assertThat(arguments.get(4)).hasToString("product");
+    }
+
+    @Test
+    void testFluxElementsAreCounted() throws Throwable {
+        Object proceeded = loggingAspect.logAround(joinPoint(SERVICE, Flux.just(1, 2, 3)));
+
+        assertThat(((Flux<?>) proceeded).collectList().block()).hasSize(3);
+        assertThat(listAppender.list).hasSize(1);
+        assertThat(listAppender.list.get(0).getArgumentArray()[4]).hasToString("3 element[s]");
+    }
+
+    @Test
+    void testArgumentsAreTruncated() throws Throwable {
+        loggingAspect.logAround(joinPoint(SERVICE, "result", "a".repeat(100)));
+
+        assertThat(listAppender.list).hasSize(1);
+        assertThat(listAppender.list.get(0).getArgumentArray()[2]).hasToString("[aaaaaaaaaaaaaaaaaaa...");
+    }
+
+    @Test
+    void testCallsAreNotSampled() throws Throwable {
+        String repository = "org.iqkv.boutique.repository.ProductRepository";
+        Logger repositoryLogger = (Logger) LoggerFactory.getLogger(repository);
+        repositoryLogger.addAppender(listAppender);
+        try {
+            loggingAspect.logAround(joinPoint(repository, "result"));
+        } finally {
+            repositoryLogger.detachAppender(listAppender);
+        }
+
+        assertThat(listAppender.list).isEmpty();
+    }
+
+    private static ProceedingJoinPoint joinPoint(String declaringTypeName, Object result, Object... args) throws Throwable {
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringTypeName()).thenReturn(declaringTypeName);
+        when(signature.getName()).thenReturn("findOne");
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(args);
+        when(joinPoint.proceed()).thenReturn(result);
+        return joinPoint;
+    }
+}
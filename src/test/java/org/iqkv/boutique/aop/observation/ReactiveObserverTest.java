@@ -0,0 +1,83 @@
+package org.iqkv.boutique.aop.observation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link ReactiveObserver}.
+ */
+class ReactiveObserverTest {
+
+    private static final KeyValues KEY_VALUES = KeyValues.of("entity", "Product", "operation", "all");
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReactiveObserver reactiveObserver;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        reactiveObserver = new ReactiveObserver(observationRegistry, meterRegistry);
+    }
+
+    @Test
+    void testMonoIsTimedFromSubscription() throws InterruptedException {
+        Mono<String> observed = reactiveObserver.observe(
+            Mono.delay(Duration.ofMillis(100)).thenReturn("product"),
+            ReactiveObserver.REPOSITORY_QUERY,
+            KEY_VALUES
+        );
+        // Time spent between assembly and subscription is not part of the query
+        Thread.sleep(200);
+
+        assertThat(observed.block()).isEqualTo("product");
+
+        Timer timer = meterRegistry.get(ReactiveObserver.REPOSITORY_QUERY).tag("entity", "Product").tag("operation", "all").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isBetween(100.0, 200.0);
+        DistributionSummary rows = meterRegistry.get(ReactiveObserver.REPOSITORY_QUERY + ".rows").summary();
+        assertThat(rows.totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFluxRowsAreRecorded() {
+        Flux<Integer> observed = reactiveObserver.observe(Flux.range(0, 5), ReactiveObserver.REPOSITORY_QUERY, KEY_VALUES);
+
+        assertThat(observed.collectList().block()).hasSize(5);
+        assertThat(observed.take(2).collectList().block()).hasSize(2);
+
+        assertThat(meterRegistry.get(ReactiveObserver.REPOSITORY_QUERY).timer().count()).isEqualTo(2);
+        DistributionSummary rows = meterRegistry.get(ReactiveObserver.REPOSITORY_QUERY + ".rows").summary();
+        assertThat(rows.count()).isEqualTo(2);
+        assertThat(rows.max()).isEqualTo(5);
+    }
+
+    @Test
+    void testErrorsAreTagged() {
+        Mono<String> observed = reactiveObserver.observe(
+            Mono.error(new IllegalStateException("Query failed")),
+            ReactiveObserver.REPOSITORY_QUERY,
+            KEY_VALUES
+        );
+
+        assertThatThrownBy(observed::block).isInstanceOf(IllegalStateException.class);
+
+        Timer timer = meterRegistry.get(ReactiveObserver.REPOSITORY_QUERY).tag("error", "IllegalStateException").timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
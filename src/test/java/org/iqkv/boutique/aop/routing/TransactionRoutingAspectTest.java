@@ -0,0 +1,127 @@
+package org.iqkv.boutique.aop.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Test class for the {@link TransactionRoutingAspect}.
+ */
+class TransactionRoutingAspectTest {
+
+    private static final Context USER = ReactiveSecurityContextHolder.withAuthentication(
+        new UsernamePasswordAuthenticationToken("user", "password")
+    );
+
+    private static final Context OTHER_USER = ReactiveSecurityContextHolder.withAuthentication(
+        new UsernamePasswordAuthenticationToken("other", "password")
+    );
+
+    private TransactionRoutingAspect transactionRoutingAspect;
+
+    @BeforeEach
+    void setup() {
+        transactionRoutingAspect = new TransactionRoutingAspect(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testReadOnlyTransactionIsMarked() throws Throwable {
+        assertThat(route("findOne").contextWrite(USER).block()).isTrue();
+        assertThat(route("findOne").block()).isTrue();
+    }
+
+    @Test
+    void testReadWriteTransactionIsNotMarked() throws Throwable {
+        assertThat(route("save").contextWrite(USER).block()).isFalse();
+    }
+
+    @Test
+    void testReadsFollowingAWriteAreNotMarked() throws Throwable {
+        route("save").contextWrite(USER).block();
+
+        assertThat(route("findOne").contextWrite(USER).block()).isFalse();
+        assertThat(route("findOne").contextWrite(OTHER_USER).block()).isTrue();
+    }
+
+    @Test
+    void testWriteIsRecordedInMarker() throws Throwable {
+        WriteMarker marker = new WriteMarker(0);
+
+        route("save").contextWrite(Context.of(WriteMarker.class, marker)).block();
+
+        assertThat(marker.isUpdated()).isTrue();
+        assertThat(marker.getWroteAt()).isPositive();
+    }
+
+    @Test
+    void testReadsFollowingAWriteOnAnotherNodeAreNotMarked() throws Throwable {
+        WriteMarker recent = new WriteMarker(System.currentTimeMillis() - 1000);
+        WriteMarker old = new WriteMarker(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis());
+
+        assertThat(route("findOne").contextWrite(Context.of(WriteMarker.class, recent)).contextWrite(USER).block()).isFalse();
+        assertThat(route("findOne").contextWrite(Context.of(WriteMarker.class, old)).contextWrite(USER).block()).isTrue();
+        assertThat(recent.isUpdated()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFluxIsMarked() throws Throwable {
+        MethodSignature signature = signature("findAll");
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(new FixtureService());
+        when(joinPoint.proceed()).thenReturn(Flux.deferContextual(context -> Flux.just(TransactionRoutingAspect.isReadOnly(context))));
+
+        Flux<Boolean> routed = (Flux<Boolean>) transactionRoutingAspect.route(joinPoint);
+
+        assertThat(routed.contextWrite(USER).collectList().block()).containsExactly(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Boolean> route(String method) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = signature(method);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(new FixtureService());
+        when(joinPoint.proceed()).thenReturn(Mono.deferContextual(context -> Mono.just(TransactionRoutingAspect.isReadOnly(context))));
+        return (Mono<Boolean>) transactionRoutingAspect.route(joinPoint);
+    }
+
+    private static MethodSignature signature(String method) throws NoSuchMethodException {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(FixtureService.class.getMethod(method));
+        when(signature.getReturnType()).thenAnswer(invocation -> FixtureService.class.getMethod(method).getReturnType());
+        when(signature.getDeclaringType()).thenReturn(FixtureService.class);
+        return signature;
+    }
+
+    @Transactional
+    static class FixtureService {
+
+        public Mono<Boolean> save() {
+            return Mono.empty();
+        }
+
+        @Transactional(readOnly = true)
+        public Mono<Boolean> findOne() {
+            return Mono.empty();
+        }
+
+        @Transactional(readOnly = true)
+        public Flux<Boolean> findAll() {
+            return Flux.empty();
+        }
+    }
+}
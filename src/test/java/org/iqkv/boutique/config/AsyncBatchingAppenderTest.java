@@ -0,0 +1,136 @@
+package org.iqkv.boutique.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link AsyncBatchingAppender}.
+ */
+class AsyncBatchingAppenderTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    private final AsyncBatchingAppender appender = new AsyncBatchingAppender();
+
+    @BeforeEach
+    void setup() {
+        loggerContext.setMDCAdapter(new LogbackMDCAdapter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        appender.stop();
+    }
+
+    @Test
+    void testRingBuffer() {
+        AsyncBatchingAppender.RingBuffer<Integer> ringBuffer = new AsyncBatchingAppender.RingBuffer<>(3);
+
+        assertThat(ringBuffer.capacity()).isEqualTo(4);
+        assertThat(ringBuffer.poll()).isNull();
+        for (int i = 0; i < 4; i++) {
+            assertThat(ringBuffer.offer(i)).isTrue();
+        }
+        assertThat(ringBuffer.offer(4)).isFalse();
+        assertThat(ringBuffer.size()).isEqualTo(4);
+        assertThat(ringBuffer.poll()).isZero();
+        assertThat(ringBuffer.offer(4)).isTrue();
+        for (int i = 1; i <= 4; i++) {
+            assertThat(ringBuffer.poll()).isEqualTo(i);
+        }
+        assertThat(ringBuffer.poll()).isNull();
+        assertThat(ringBuffer.size()).isZero();
+    }
+
+    @Test
+    void testEventsAreWrittenInOrder() {
+        ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+        listAppender.setContext(loggerContext);
+        listAppender.start();
+        start(listAppender, 128);
+
+        for (int i = 0; i < 100; i++) {
+            appender.doAppend(event(Level.INFO, "message " + i));
+        }
+        appender.stop();
+
+        assertThat(listAppender.list).hasSize(100);
+        assertThat(listAppender.list.get(0).getFormattedMessage()).isEqualTo("message 0");
+        assertThat(listAppender.list.get(99).getFormattedMessage()).isEqualTo("message 99");
+        assertThat(appender.getDiscardedCount(Level.INFO)).isZero();
+    }
+
+    @Test
+    void testVerboseEventsAreDiscardedUnderBackpressure() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingAppender blockingAppender = new BlockingAppender(blocked, release);
+        blockingAppender.setContext(loggerContext);
+        blockingAppender.start();
+        appender.setDiscardingThreshold(3);
+        start(blockingAppender, 4);
+
+        // Taken by the worker, which then blocks: the queue stays as filled below
+        appender.doAppend(event(Level.INFO, "first"));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        appender.doAppend(event(Level.INFO, "queued"));
+        appender.doAppend(event(Level.INFO, "queued"));
+        appender.doAppend(event(Level.INFO, "discarded"));
+        appender.doAppend(event(Level.DEBUG, "discarded"));
+        appender.doAppend(event(Level.ERROR, "queued"));
+        appender.doAppend(event(Level.ERROR, "queued"));
+        appender.doAppend(event(Level.ERROR, "discarded"));
+
+        assertThat(appender.getQueueDepth()).isEqualTo(4);
+        assertThat(appender.getDiscardedCount(Level.INFO)).isEqualTo(1);
+        assertThat(appender.getDiscardedCount(Level.DEBUG)).isEqualTo(1);
+        assertThat(appender.getDiscardedCount(Level.ERROR)).isEqualTo(1);
+        release.countDown();
+    }
+
+    private void start(AppenderBase<ILoggingEvent> child, int queueSize) {
+        appender.setContext(loggerContext);
+        appender.setName("ASYNC_TEST");
+        appender.setQueueSize(queueSize);
+        appender.addAppender(child);
+        appender.start();
+    }
+
+    private LoggingEvent event(Level level, String message) {
+        return new LoggingEvent(AsyncBatchingAppenderTest.class.getName(), loggerContext.getLogger("test"), level, message, null, null);
+    }
+
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final CountDownLatch blocked;
+
+        private final CountDownLatch release;
+
+        BlockingAppender(CountDownLatch blocked, CountDownLatch release) {
+            this.blocked = blocked;
+            this.release = release;
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.iqkv.boutique.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.ansi.AnsiOutput;
+
+/**
+ * Test class for the {@link CRLFLogConverter}.
+ */
+class CRLFLogConverterTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    @Test
+    void testCleanInputIsUnchanged() {
+        CRLFLogConverter converter = new CRLFLogConverter();
+        String in = "REST request to get Product : 42";
+
+        assertThat(converter.transform(event("org.iqkv.boutique.web.rest.ProductResource"), in)).isSameAs(in);
+    }
+
+    @Test
+    void testCrlfCharactersAreReplaced() {
+        CRLFLogConverter converter = new CRLFLogConverter();
+
+        String out = converter.transform(event("org.iqkv.boutique.web.rest.ProductResource"), "line1\nline2\r\tline3");
+
+        assertThat(out).isEqualTo("line1_line2__line3");
+    }
+
+    @Test
+    void testCrlfCharactersAreReplacedWithAnsiElement() {
+        AnsiOutput.setEnabled(AnsiOutput.Enabled.ALWAYS);
+        try {
+            CRLFLogConverter converter = new CRLFLogConverter();
+            converter.setOptionList(List.of("red"));
+
+            String out = converter.transform(event("org.iqkv.boutique.web.rest.ProductResource"), "a\nb");
+
+            assertThat(out).isEqualTo("a\u001B[31m_\u001B[0;39mb");
+        } finally {
+            AnsiOutput.setEnabled(AnsiOutput.Enabled.DETECT);
+        }
+    }
+
+    @Test
+    void testSafeLoggers() {
+        CRLFLogConverter converter = new CRLFLogConverter();
+        String in = "line1\nline2";
+
+        assertThat(converter.transform(event("org.hibernate.SQL"), in)).isSameAs(in);
+        assertThat(converter.transform(event("org.springframework.boot.diagnostics.LoggingFailureAnalysisReporter"), in)).isSameAs(in);
+        assertThat(converter.transform(event("org.springframework.boot.SpringApplication"), in)).isEqualTo("line1_line2");
+        assertThat(converter.transform(event("org"), in)).isEqualTo("line1_line2");
+    }
+
+    @Test
+    void testSafeMarker() {
+        CRLFLogConverter converter = new CRLFLogConverter();
+        LoggingEvent event = event("org.iqkv.boutique.web.rest.ProductResource");
+        event.addMarker(CRLFLogConverter.CRLF_SAFE_MARKER);
+        String in = "line1\nline2";
+
+        assertThat(converter.transform(event, in)).isSameAs(in);
+    }
+
+    @Test
+    void testCleanInputDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CRLFLogConverter converter = new CRLFLogConverter();
+        LoggingEvent event = event("org.iqkv.boutique.web.rest.ProductResource");
+        String in = "REST request to get a page of Products";
+        int iterations = 100_000;
+        for (int i = 0; i < iterations; i++) {
+            converter.transform(event, in);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            converter.transform(event, in);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        // Allow for the measurement itself, far below a single allocation per event
+        assertThat(allocated).isLessThan(iterations);
+    }
+
+    private LoggingEvent event(String loggerName) {
+        Logger logger = loggerContext.getLogger(loggerName);
+        return new LoggingEvent(CRLFLogConverterTest.class.getName(), logger, Level.INFO, "message", null, null);
+    }
+}
@@ -0,0 +1,56 @@
+package org.iqkv.boutique.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link ConnectionPoolMetricsRecorder}.
+ */
+class ConnectionPoolMetricsRecorderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConnectionPoolMetricsRecorder recorder;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new ConnectionPoolMetricsRecorder(meterRegistry, "connectionFactory");
+    }
+
+    @Test
+    void testAcquisitionsAreTaggedByOutcome() {
+        recorder.recordPendingSuccessAndLatency(3);
+        recorder.recordPendingSuccessAndLatency(5);
+        recorder.recordPendingFailureAndLatency(5000);
+
+        Timer success = meterRegistry.get("r2dbc.pool.acquire").tag("name", "connectionFactory").tag("outcome", "success").timer();
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(success.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(8);
+        Timer failure = meterRegistry.get("r2dbc.pool.acquire").tag("outcome", "failure").timer();
+        assertThat(failure.count()).isEqualTo(1);
+        assertThat(failure.max(TimeUnit.SECONDS)).isEqualTo(5);
+    }
+
+    @Test
+    void testConnectionLifecycleIsRecorded() {
+        recorder.recordAllocationSuccessAndLatency(20);
+        recorder.recordAllocationFailureAndLatency(5000);
+        recorder.recordRecycled();
+        recorder.recordIdleTime(60_000);
+        recorder.recordLifetimeDuration(1_800_000);
+        recorder.recordDestroyLatency(1);
+
+        assertThat(meterRegistry.get("r2dbc.pool.allocation").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.allocation").tag("outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.recycled").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.connection.idle.time").timer().totalTime(TimeUnit.MINUTES)).isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.pool.connection.lifetime").timer().totalTime(TimeUnit.MINUTES)).isEqualTo(30);
+        assertThat(meterRegistry.get("r2dbc.pool.destroy").timer().count()).isEqualTo(1);
+    }
+}
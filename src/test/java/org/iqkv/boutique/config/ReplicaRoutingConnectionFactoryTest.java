@@ -0,0 +1,79 @@
+package org.iqkv.boutique.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import java.time.Duration;
+import org.iqkv.boutique.aop.routing.TransactionRoutingAspect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Test class for the {@link ReplicaRoutingConnectionFactory}.
+ */
+class ReplicaRoutingConnectionFactoryTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private ReplicaRoutingConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setup() {
+        ConnectionFactory primary = mock(ConnectionFactory.class);
+        ConnectionFactory replica = mock(ConnectionFactory.class);
+        doReturn(Mono.just(primaryConnection)).when(primary).create();
+        doReturn(Mono.just(replicaConnection)).when(replica).create();
+        doReturn((ConnectionFactoryMetadata) () -> "PostgreSQL").when(replica).getMetadata();
+        ApplicationProperties.Database.Replica replicaProperties = new ApplicationProperties.Database.Replica();
+        replicaProperties.setMaxLag(Duration.ofSeconds(5));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        replicaLagMonitor = new ReplicaLagMonitor(replica, replicaProperties, meterRegistry);
+        connectionFactory = new ReplicaRoutingConnectionFactory(primary, replica, replicaLagMonitor, meterRegistry);
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @Test
+    void testReadOnlyTransactionUsesReplica() {
+        replicaLagMonitor.updateLag(1);
+
+        assertThat(create(true)).isSameAs(replicaConnection);
+        assertThat(create(false)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void testLateReplicaIsNotUsed() {
+        replicaLagMonitor.updateLag(10);
+
+        assertThat(create(true)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void testReplicaIsNotUsedBeforeItsLagIsKnown() {
+        assertThat(create(true)).isSameAs(primaryConnection);
+
+        replicaLagMonitor.updateLag(0);
+        assertThat(create(true)).isSameAs(replicaConnection);
+
+        replicaLagMonitor.updateLag(Double.NaN);
+        assertThat(create(true)).isSameAs(primaryConnection);
+    }
+
+    private Connection create(boolean readOnly) {
+        Mono<Connection> connection = Mono.from(connectionFactory.create());
+        if (readOnly) {
+            connection = connection.contextWrite(Context.of(TransactionRoutingAspect.READ_ONLY, true));
+        }
+        return connection.block();
+    }
+}
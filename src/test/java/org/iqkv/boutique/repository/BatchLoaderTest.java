@@ -0,0 +1,188 @@
+package org.iqkv.boutique.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.iqkv.boutique.aop.routing.TransactionRoutingAspect;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.reactive.TransactionContext;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+
+/**
+ * Test class for the {@link BatchLoader}.
+ */
+class BatchLoaderTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(50);
+
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Two values per key: the key times 10 and the key times 10 plus one.
+     */
+    private Flux<Long> load(Collection<Long> keys) {
+        batches.add(List.copyOf(keys));
+        return Flux.fromIterable(keys).flatMapIterable(key -> List.of(key * 10, key * 10 + 1));
+    }
+
+    @Test
+    void testKeysWithinWindowAreLoadedTogether() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(this::load, value -> value / 10, WINDOW, 100);
+
+        List<List<Long>> values = Flux.merge(
+            batchLoader.load(1L).collectList(),
+            batchLoader.load(2L).collectList(),
+            batchLoader.load(1L).collectList(),
+            batchLoader.load(3L).collectList()
+        )
+            .collectList()
+            .block();
+
+        assertThat(batches).containsExactly(List.of(1L, 2L, 3L));
+        assertThat(values).containsExactlyInAnyOrder(List.of(10L, 11L), List.of(20L, 21L), List.of(10L, 11L), List.of(30L, 31L));
+    }
+
+    @Test
+    void testKeyWithoutValues() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(keys -> Flux.empty(), value -> value / 10, WINDOW, 100);
+
+        assertThat(batchLoader.load(1L).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void testFullBatchIsLoadedWithoutWaiting() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(this::load, value -> value / 10, Duration.ofMinutes(1), 2);
+
+        List<Long> values = Flux.merge(batchLoader.load(1L), batchLoader.load(2L)).collectList().block(Duration.ofSeconds(5));
+
+        assertThat(batches).containsExactly(List.of(1L, 2L));
+        assertThat(values).containsExactlyInAnyOrder(10L, 11L, 20L, 21L);
+    }
+
+    @Test
+    void testSuccessiveWindowsAreLoadedSeparately() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(this::load, value -> value / 10, WINDOW, 100);
+
+        batchLoader.load(1L).blockLast();
+        batchLoader.load(2L).blockLast();
+
+        assertThat(batches).containsExactly(List.of(1L), List.of(2L));
+    }
+
+    @Test
+    void testErrorIsSignaledToAllSubscribers() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(
+            keys -> Flux.error(new IllegalStateException("Query failed")),
+            value -> value / 10,
+            WINDOW,
+            100
+        );
+
+        Flux<Long> first = batchLoader.load(1L).cache();
+        Flux<Long> second = batchLoader.load(2L).cache();
+        first.subscribe(value -> {}, e -> {});
+        second.subscribe(value -> {}, e -> {});
+
+        assertThatThrownBy(first::blockLast).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::blockLast).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testLoaderExceptionIsSignaledToAllSubscribers() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(
+            keys -> {
+                throw new IllegalStateException("Query not built");
+            },
+            value -> value / 10,
+            WINDOW,
+            100
+        );
+
+        Flux<Long> first = batchLoader.load(1L).cache();
+        Flux<Long> second = batchLoader.load(2L).cache();
+        first.subscribe(value -> {}, e -> {});
+        second.subscribe(value -> {}, e -> {});
+
+        assertThatThrownBy(() -> first.blockLast(Duration.ofSeconds(5))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.blockLast(Duration.ofSeconds(5))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testRoutingOfFirstSubscriberIsPropagated() {
+        List<Boolean> readOnly = new CopyOnWriteArrayList<>();
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(
+            keys ->
+                Flux.deferContextual(context -> {
+                    readOnly.add(TransactionRoutingAspect.isReadOnly(context));
+                    return load(keys);
+                }),
+            value -> value / 10,
+            WINDOW,
+            100
+        );
+
+        Flux.merge(
+            batchLoader.load(1L).contextWrite(Context.of(TransactionRoutingAspect.READ_ONLY, true)),
+            batchLoader.load(2L).contextWrite(Context.of(TransactionRoutingAspect.READ_ONLY, true)),
+            // A user reading their own writes is not batched with the reads from the replica
+            batchLoader.load(3L).contextWrite(Context.of(TransactionRoutingAspect.READ_ONLY, false))
+        ).blockLast();
+
+        assertThat(batches).containsExactlyInAnyOrder(List.of(1L, 2L), List.of(3L));
+        assertThat(readOnly).containsExactlyInAnyOrder(true, false);
+    }
+
+    @Test
+    void testObservationOfFirstSubscriberIsPropagated() {
+        Observation observation = Observation.start("test", ObservationRegistry.create());
+        List<Object> parents = new CopyOnWriteArrayList<>();
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(
+            keys ->
+                Flux.deferContextual(context -> {
+                    parents.add(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null));
+                    return load(keys);
+                }),
+            value -> value / 10,
+            WINDOW,
+            100
+        );
+
+        batchLoader.load(1L).contextWrite(Context.of(ObservationThreadLocalAccessor.KEY, observation)).blockLast();
+
+        assertThat(parents).containsExactly(observation);
+    }
+
+    @Test
+    void testReadWriteTransactionIsNotBatched() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(this::load, value -> value / 10, Duration.ofMinutes(1), 100);
+
+        List<Long> values = Flux.deferContextual(context -> {
+            context.get(TransactionContext.class).setActualTransactionActive(true);
+            return batchLoader.load(1L);
+        })
+            .contextWrite(TransactionContextManager.createTransactionContext())
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(values).containsExactly(10L, 11L);
+        assertThat(batches).containsExactly(List.of(1L));
+    }
+
+    @Test
+    void testBatchingIsDisabledWithOneKeyPerBatch() {
+        BatchLoader<Long, Long> batchLoader = new BatchLoader<>(this::load, value -> value / 10, WINDOW, 1);
+
+        Flux.merge(batchLoader.load(1L), batchLoader.load(2L)).blockLast();
+
+        assertThat(batches).containsExactlyInAnyOrder(List.of(1L), List.of(2L));
+    }
+}
@@ -0,0 +1,71 @@
+package org.iqkv.boutique.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.iqkv.boutique.repository.IndexAdvisor.ColumnReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link IndexAdvisor}.
+ */
+class IndexAdvisorTest {
+
+    @Test
+    void testPredicateColumnsOfJoin() {
+        String sql =
+            "SELECT e.id AS e_id, product.id AS product_id FROM product_order e" +
+            " LEFT OUTER JOIN product product ON e.product_id = product.id" +
+            " LEFT OUTER JOIN shopping_cart cart ON e.cart_id = cart.id WHERE e.cart_id = ANY($1) ORDER BY e.id LIMIT 20";
+
+        assertThat(IndexAdvisor.predicateColumns(sql)).containsExactlyInAnyOrder(
+            new ColumnReference("product_order", "product_id"),
+            new ColumnReference("product", "id"),
+            new ColumnReference("product_order", "cart_id"),
+            new ColumnReference("shopping_cart", "id")
+        );
+    }
+
+    @Test
+    void testPredicateColumnsOfSingleTable() {
+        assertThat(IndexAdvisor.predicateColumns("SELECT * FROM product_order entity WHERE entity.cart_id IS NULL")).containsExactly(
+            new ColumnReference("product_order", "cart_id")
+        );
+        assertThat(
+            IndexAdvisor.predicateColumns(
+                "UPDATE product_stock_stripe SET quantity = quantity + :quantity WHERE product_id = :id AND stripe = :stripe"
+            )
+        ).containsExactly(new ColumnReference("product_stock_stripe", "product_id"), new ColumnReference("product_stock_stripe", "stripe"));
+        assertThat(
+            IndexAdvisor.predicateColumns(
+                "INSERT INTO cached_user_info (id, claims) VALUES (:id, :claims) ON CONFLICT (id) DO UPDATE SET claims = EXCLUDED.claims"
+            )
+        ).isEmpty();
+    }
+
+    @Test
+    void testLeadingColumn() {
+        assertThat(IndexAdvisor.leadingColumn("CREATE UNIQUE INDEX product_pkey ON public.product USING btree (id)")).isEqualTo("id");
+        assertThat(
+            IndexAdvisor.leadingColumn(
+                "CREATE INDEX ix_shopping_cart__customer_details_id_placed_date ON public.shopping_cart" +
+                " USING btree (customer_details_id, placed_date DESC, id DESC)"
+            )
+        ).isEqualTo("customer_details_id");
+        assertThat(IndexAdvisor.leadingColumn("CREATE INDEX ix_lower ON public.product USING btree (lower((name)::text))")).isEmpty();
+    }
+
+    @Test
+    void testUnindexed() {
+        Map<String, Collection<String>> leadingColumns = Map.of("product_order", List.of("id", "cart_id"), "product", List.of("id"));
+        String byProduct = "SELECT * FROM product_order entity WHERE entity.product_id = :id";
+        String byCart = "SELECT * FROM product_order entity WHERE entity.cart_id = :id";
+        String unknownTable = "SELECT * FROM jhi_user entity WHERE entity.login = :login";
+
+        assertThat(IndexAdvisor.unindexed(List.of(byProduct, byCart, unknownTable), leadingColumns)).containsExactly(
+            new IndexAdvisor.UnindexedPredicate("product_order", "product_id", List.of(byProduct))
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package org.iqkv.boutique.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import org.iqkv.boutique.aop.observation.ReactiveObserver;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.domain.ProductOrder;
+import org.iqkv.boutique.repository.rowmapper.ProductOrderRowMapper;
+import org.iqkv.boutique.repository.rowmapper.ProductRowMapper;
+import org.iqkv.boutique.repository.rowmapper.ShoppingCartRowMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Test class for the batch loading of the relationships of the {@link ProductOrderRepositoryInternalImpl}.
+ */
+class ProductOrderRepositoryInternalImplTest {
+
+    @Test
+    void testOrdersWithoutForeignKeysAreNotLookedUp() {
+        DatabaseClient db = mock(DatabaseClient.class);
+        R2dbcEntityTemplate template = mock(R2dbcEntityTemplate.class);
+        when(template.getDatabaseClient()).thenReturn(db);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getDatabase().setBatchLoading(true);
+        ProductOrderRepositoryInternalImpl repository = new ProductOrderRepositoryInternalImpl(
+            template,
+            mock(EntityManager.class),
+            mock(ProductRowMapper.class),
+            mock(ShoppingCartRowMapper.class),
+            mock(ProductOrderRowMapper.class),
+            template,
+            new MappingR2dbcConverter(new R2dbcMappingContext()),
+            new ReactiveObserver(ObservationRegistry.NOOP, new SimpleMeterRegistry()),
+            new SqlStatistics(applicationProperties),
+            applicationProperties
+        );
+        ProductOrder first = new ProductOrder().quantity(1).totalPrice(BigDecimal.ONE);
+        ProductOrder second = new ProductOrder().quantity(2).totalPrice(BigDecimal.TEN);
+
+        List<ProductOrder> orders = repository.loadRelationships(Flux.just(first, second)).collectList().block();
+
+        assertThat(orders).containsExactly(first, second);
+        assertThat(orders).allSatisfy(order -> {
+            assertThat(order.getProduct()).isNull();
+            assertThat(order.getCart()).isNull();
+        });
+        verifyNoInteractions(db);
+    }
+}
@@ -0,0 +1,86 @@
+package org.iqkv.boutique.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SqlStatistics}.
+ */
+class SqlStatisticsTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private SqlStatistics sqlStatistics;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSqlStats().setSlowThreshold(Duration.ofSeconds(10));
+        sqlStatistics = new SqlStatistics(applicationProperties);
+    }
+
+    @Test
+    void testNormalize() {
+        assertThat(SqlStatistics.normalize("SELECT e.id AS e_id FROM product e WHERE e.id = 42")).isEqualTo(
+            "SELECT e.id AS e_id FROM product e WHERE e.id = ?"
+        );
+        String sql = "SELECT *\n  FROM customer_details e\tWHERE e.city = 'O''Brien''s' LIMIT 20 OFFSET 40";
+        assertThat(SqlStatistics.normalize(sql)).isEqualTo("SELECT * FROM customer_details e WHERE e.city = ? LIMIT ? OFFSET ?");
+        assertThat(SqlStatistics.normalize("SELECT e.price FROM product e WHERE e.price > 12.50 AND e.id = $1")).isEqualTo(
+            "SELECT e.price FROM product e WHERE e.price > ? AND e.id = $1"
+        );
+        assertThat(SqlStatistics.normalize("SELECT t1.col2 FROM t1")).isEqualTo("SELECT t1.col2 FROM t1");
+    }
+
+    @Test
+    void testStatisticsByTemplate() {
+        sqlStatistics.record("SELECT * FROM product e WHERE e.id = 1", TimeUnit.MILLISECONDS.toNanos(2), 1);
+        sqlStatistics.record("SELECT * FROM product e WHERE e.id = 2", TimeUnit.MILLISECONDS.toNanos(4), 1);
+        sqlStatistics.record("SELECT * FROM product e WHERE e.id = 3", TimeUnit.MILLISECONDS.toNanos(6), 0);
+        sqlStatistics.record("SELECT * FROM product_category e", TimeUnit.MILLISECONDS.toNanos(1), 10);
+
+        List<SqlStatistics.StatementStatistics> statistics = sqlStatistics.getStatistics();
+
+        assertThat(statistics).hasSize(2);
+        SqlStatistics.StatementStatistics product = statistics.get(0);
+        assertThat(product.sql()).isEqualTo("SELECT * FROM product e WHERE e.id = ?");
+        assertThat(product.calls()).isEqualTo(3);
+        assertThat(product.totalTimeMs()).isEqualTo(12.0);
+        assertThat(product.meanTimeMs()).isEqualTo(4.0);
+        assertThat(product.maxTimeMs()).isEqualTo(6.0);
+        assertThat(product.p99TimeMs()).isBetween(6.0, 6.0 * 1.25);
+        assertThat(product.rows()).isEqualTo(2);
+        assertThat(statistics.get(1).rows()).isEqualTo(10);
+    }
+
+    @Test
+    void testMaxStatements() {
+        applicationProperties.getSqlStats().setMaxStatements(1);
+
+        sqlStatistics.record("SELECT * FROM product", 1000, 1);
+        sqlStatistics.record("SELECT * FROM product_category", 1000, 1);
+
+        assertThat(sqlStatistics.getStatistics()).hasSize(1);
+        assertThat(sqlStatistics.getUntracked()).isEqualTo(1);
+
+        sqlStatistics.reset();
+
+        assertThat(sqlStatistics.getStatistics()).isEmpty();
+        assertThat(sqlStatistics.getUntracked()).isZero();
+    }
+
+    @Test
+    void testLatencyHistogramBuckets() {
+        for (long micros : new long[] { 0, 1, 3, 4, 5, 7, 8, 100, 1_000_000, Long.MAX_VALUE / 2 }) {
+            int index = SqlStatistics.LatencyHistogram.index(micros);
+            assertThat(SqlStatistics.LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(micros);
+            assertThat(SqlStatistics.LatencyHistogram.upperBound(index)).isLessThanOrEqualTo(Math.max(micros + micros / 4, micros));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.iqkv.boutique.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Test class for the {@link AuthorityRegistry} utility class.
+ */
+class AuthorityRegistryTest {
+
+    @Test
+    void testAuthoritiesAreInterned() {
+        assertThat(AuthorityRegistry.intern("ROLE_TEST_INTERNED")).isEqualTo(AuthorityRegistry.intern("ROLE_TEST_INTERNED"));
+        GrantedAuthority authority = AuthorityRegistry.grantedAuthority("ROLE_TEST_INTERNED");
+        assertThat(AuthorityRegistry.grantedAuthority("ROLE_TEST_INTERNED")).isSameAs(authority);
+        assertThat(AuthorityRegistry.idOf("ROLE_TEST_NEVER_SEEN")).isEqualTo(-1);
+    }
+
+    @Test
+    void testAuthoritySetChecks() {
+        AuthoritySet authorities = AuthorityRegistry.of(List.of(AuthorityRegistry.grantedAuthority(AuthoritiesConstants.USER)));
+
+        assertThat(authorities.contains(AuthoritiesConstants.USER)).isTrue();
+        assertThat(authorities.contains(AuthoritiesConstants.ADMIN)).isFalse();
+        assertThat(authorities.containsAny(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER)).isTrue();
+        assertThat(authorities.containsAny(AuthoritiesConstants.ADMIN, "ROLE_TEST_UNKNOWN")).isFalse();
+        assertThat(authorities.names()).containsExactly(AuthoritiesConstants.USER);
+    }
+
+    @Test
+    void testAuthoritySetIsComputedOncePerToken() {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject("user").build();
+        List<GrantedAuthority> authorities = List.of(AuthorityRegistry.grantedAuthority(AuthoritiesConstants.ADMIN));
+
+        AuthoritySet first = AuthorityRegistry.of(new JwtAuthenticationToken(jwt, authorities));
+        AuthoritySet second = AuthorityRegistry.of(new JwtAuthenticationToken(jwt, authorities));
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.contains(AuthoritiesConstants.ADMIN)).isTrue();
+    }
+}
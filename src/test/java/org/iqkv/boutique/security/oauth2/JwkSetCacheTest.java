@@ -0,0 +1,122 @@
+package org.iqkv.boutique.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link JwkSetCache} utility class.
+ */
+class JwkSetCacheTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private JWKSet published;
+
+    private JwkSetCache jwkSetCache;
+
+    @BeforeEach
+    void setup() throws Exception {
+        ReactiveClientRegistrationRepository registrations = mock(ReactiveClientRegistrationRepository.class);
+        when(registrations.findByRegistrationId("oidc")).thenReturn(
+            Mono.just(
+                ClientRegistration.withRegistrationId("oidc")
+                    .clientId("client")
+                    .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                    .tokenUri("http://idp/token")
+                    .jwkSetUri("http://idp/jwks")
+                    .build()
+            )
+        );
+        WebClient.Builder webClientBuilder = WebClient.builder()
+            .exchangeFunction(request -> {
+                fetches.incrementAndGet();
+                if (published == null) {
+                    return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+                }
+                return Mono.just(
+                    ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(published.toString())
+                        .build()
+                );
+            });
+        published = new JWKSet(generateKey("first"));
+        jwkSetCache = new JwkSetCache(registrations, webClientBuilder, applicationProperties);
+    }
+
+    @Test
+    void testKnownKeyIsServedFromCache() {
+        jwkSetCache.refreshKeys().block();
+
+        assertThat(select("first")).extracting(JWK::getKeyID).containsExactly("first");
+        assertThat(select("first")).hasSize(1);
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void testUnknownKeyTriggersFetch() throws Exception {
+        applicationProperties.getJwkSet().setMinRefreshInterval(Duration.ZERO);
+        jwkSetCache.refreshKeys().block();
+        published = new JWKSet(List.of(published.getKeys().get(0), generateKey("second")));
+
+        assertThat(select("second")).extracting(JWK::getKeyID).containsExactly("second");
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void testUnknownKeyFetchIsRateLimited() {
+        jwkSetCache.refreshKeys().block();
+
+        assertThat(select("unknown")).isEmpty();
+        assertThat(select("unknown")).isEmpty();
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void testStaleKeysAreServedWhenIdpIsDown() {
+        applicationProperties.getJwkSet().setMinRefreshInterval(Duration.ZERO);
+        jwkSetCache.refreshKeys().block();
+        published = null;
+
+        jwkSetCache.refreshKeys().block();
+
+        assertThat(select("first")).extracting(JWK::getKeyID).containsExactly("first");
+        assertThat(fetches).hasValue(2);
+    }
+
+    private List<JWK> select(String keyId) {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(), new JWTClaimsSet.Builder().build());
+        return jwkSetCache.select(jwt).collectList().block();
+    }
+
+    private static RSAKey generateKey(String keyId) throws Exception {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate().toPublicJWK();
+    }
+}
@@ -0,0 +1,174 @@
+package org.iqkv.boutique.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.domain.CachedUserInfo;
+import org.iqkv.boutique.repository.CachedUserInfoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link UserInfoCache}.
+ */
+class UserInfoCacheTest {
+
+    private static final String USER_INFO_URI = "http://idp/userinfo";
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private CachedUserInfoRepository cachedUserInfoRepository;
+
+    private boolean available;
+
+    @BeforeEach
+    void setup() {
+        cachedUserInfoRepository = mock(CachedUserInfoRepository.class);
+        when(cachedUserInfoRepository.findUnexpiredById(anyString(), any())).thenReturn(Mono.empty());
+        when(cachedUserInfoRepository.upsert(anyString(), anyString(), any())).thenReturn(Mono.just(1L));
+        applicationProperties.getUserInfo().setRefreshAhead(Duration.ZERO);
+        available = true;
+    }
+
+    @Test
+    void testUserInfoIsFetchedOncePerSubject() {
+        UserInfoCache userInfoCache = userInfoCache();
+
+        Jwt first = userInfoCache.enrich(jwt("first-token"), USER_INFO_URI).block();
+        Jwt second = userInfoCache.enrich(jwt("second-token"), USER_INFO_URI).block();
+
+        assertThat(fetches).hasValue(1);
+        assertThat(first.getClaimAsString("given_name")).isEqualTo("Jane");
+        assertThat(first.getClaimAsString("family_name")).isEqualTo("Doe");
+        assertThat(second.getTokenValue()).isEqualTo("second-token");
+        assertThat(second.getClaimAsString("zoneinfo")).isEqualTo("1");
+    }
+
+    @Test
+    void testExpiredUserInfoIsFetchedAgain() throws InterruptedException {
+        applicationProperties.getUserInfo().setTimeToLive(Duration.ofMillis(200));
+        UserInfoCache userInfoCache = userInfoCache();
+
+        userInfoCache.enrich(jwt("token"), USER_INFO_URI).block();
+        userInfoCache.enrich(jwt("token"), USER_INFO_URI).block();
+        assertThat(fetches).hasValue(1);
+
+        Thread.sleep(300);
+
+        assertThat(userInfoCache.enrich(jwt("token"), USER_INFO_URI).block().getClaimAsString("zoneinfo")).isEqualTo("2");
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void testUserInfoIsRefreshedAhead() {
+        applicationProperties.getUserInfo().setRefreshAhead(Duration.ofHours(2));
+        UserInfoCache userInfoCache = userInfoCache();
+
+        // Already within the refresh window: the cached claims are used, and fetched again in the background
+        assertThat(userInfoCache.enrich(jwt("token"), USER_INFO_URI).block().getClaimAsString("zoneinfo")).isEqualTo("1");
+        assertThat(fetches).hasValue(2);
+        assertThat(userInfoCache.enrich(jwt("token"), USER_INFO_URI).block().getClaimAsString("zoneinfo")).isEqualTo("2");
+    }
+
+    @Test
+    void testUserInfoIsLoadedFromDatabase() {
+        applicationProperties.getUserInfo().setPersistent(true);
+        when(cachedUserInfoRepository.findUnexpiredById(eq("subject"), any())).thenReturn(
+            Mono.just(
+                new CachedUserInfo()
+                    .id("subject")
+                    .claims("{\"preferred_username\":\"stored\",\"zoneinfo\":\"stored\"}")
+                    .expiresAt(Instant.now().plusSeconds(60))
+            )
+        );
+        UserInfoCache userInfoCache = userInfoCache();
+
+        Jwt jwt = userInfoCache.enrich(jwt("token"), USER_INFO_URI).block();
+
+        assertThat(jwt.getClaimAsString("zoneinfo")).isEqualTo("stored");
+        assertThat(fetches).hasValue(0);
+        verify(cachedUserInfoRepository, never()).upsert(anyString(), anyString(), any());
+    }
+
+    @Test
+    void testFetchedUserInfoIsStored() {
+        applicationProperties.getUserInfo().setPersistent(true);
+        when(cachedUserInfoRepository.upsert(anyString(), anyString(), any())).thenReturn(Mono.error(new IllegalStateException("down")));
+        UserInfoCache userInfoCache = userInfoCache();
+
+        // The database is only a second tier: a failure to store the claims does not fail the request
+        assertThat(userInfoCache.enrich(jwt("token"), USER_INFO_URI).block().getClaimAsString("zoneinfo")).isEqualTo("1");
+        verify(cachedUserInfoRepository).upsert(eq("subject"), anyString(), any());
+    }
+
+    @Test
+    void testUserInfoFailureIsNotCached() {
+        available = false;
+        UserInfoCache userInfoCache = userInfoCache();
+
+        assertThatThrownBy(() -> userInfoCache.enrich(jwt("token"), USER_INFO_URI).block()).isInstanceOf(WebClientResponseException.class);
+
+        available = true;
+        assertThat(userInfoCache.enrich(jwt("token"), USER_INFO_URI).block().getClaimAsString("zoneinfo")).isEqualTo("2");
+        assertThat(fetches).hasValue(2);
+    }
+
+    private UserInfoCache userInfoCache() {
+        WebClient.Builder webClientBuilder = WebClient.builder()
+            .exchangeFunction(request -> {
+                int fetch = fetches.incrementAndGet();
+                if (!available) {
+                    return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+                }
+                return Mono.just(
+                    ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(
+                            "{\"sub\":\"subject\",\"preferred_username\":\"jane\",\"name\":\"Jane Doe\",\"zoneinfo\":\"" + fetch + "\"}"
+                        )
+                        .build()
+                );
+            });
+        return new UserInfoCache(
+            cachedUserInfoRepository,
+            new ObjectMapper(),
+            webClientBuilder,
+            new SimpleMeterRegistry(),
+            applicationProperties
+        );
+    }
+
+    private static Jwt jwt(String token) {
+        return Jwt.withTokenValue(token)
+            .header("alg", "RS256")
+            .subject("subject")
+            .audience(List.of("boutique"))
+            .issuedAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(300))
+            .build();
+    }
+}
@@ -0,0 +1,59 @@
+package org.iqkv.boutique.security.oauth2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link VerifiedTokenCache} utility class.
+ */
+class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), new ApplicationProperties());
+
+    private final ReactiveJwtDecoder jwtDecoder = mock(ReactiveJwtDecoder.class);
+
+    @Test
+    void testTokenIsVerifiedOnce() {
+        Jwt jwt = jwt("token", Instant.now().plusSeconds(300));
+        when(jwtDecoder.decode("token")).thenReturn(Mono.just(jwt));
+
+        assertThat(verifiedTokenCache.decode("token", jwtDecoder).block()).isSameAs(jwt);
+        assertThat(verifiedTokenCache.decode("token", jwtDecoder).block()).isSameAs(jwt);
+        verify(jwtDecoder, times(1)).decode("token");
+    }
+
+    @Test
+    void testExpiredTokenIsNotCached() {
+        when(jwtDecoder.decode("token")).thenReturn(Mono.just(jwt("token", Instant.now().minusSeconds(1))));
+
+        verifiedTokenCache.decode("token", jwtDecoder).block();
+        verifiedTokenCache.decode("token", jwtDecoder).block();
+        verify(jwtDecoder, times(2)).decode("token");
+    }
+
+    @Test
+    void testRejectedTokenIsNotCached() {
+        when(jwtDecoder.decode("token")).thenReturn(Mono.error(new BadJwtException("Invalid signature")));
+
+        assertThatThrownBy(() -> verifiedTokenCache.decode("token", jwtDecoder).block()).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> verifiedTokenCache.decode("token", jwtDecoder).block()).isInstanceOf(BadJwtException.class);
+        verify(jwtDecoder, times(2)).decode("token");
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").subject("user").issuedAt(expiresAt.minusSeconds(600)).expiresAt(expiresAt).build();
+    }
+}
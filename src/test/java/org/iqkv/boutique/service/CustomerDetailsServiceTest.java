@@ -0,0 +1,63 @@
+package org.iqkv.boutique.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.iqkv.boutique.domain.CustomerDetails;
+import org.iqkv.boutique.repository.CustomerDetailsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link CustomerDetailsService}.
+ */
+class CustomerDetailsServiceTest {
+
+    private static final String LOGIN = "user";
+
+    private CustomerDetailsRepository customerDetailsRepository;
+
+    private CustomerDetailsService customerDetailsService;
+
+    @BeforeEach
+    void setup() {
+        customerDetailsRepository = mock(CustomerDetailsRepository.class);
+        when(customerDetailsRepository.findIdByUserLogin(LOGIN)).thenReturn(Mono.just(1L));
+        when(customerDetailsRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(customerDetailsRepository.deleteById(1L)).thenReturn(Mono.empty());
+        customerDetailsService = new CustomerDetailsService(customerDetailsRepository);
+    }
+
+    @Test
+    void testIdOfUserIsCached() {
+        assertThat(customerDetailsService.findIdByUserLogin(LOGIN).block()).isEqualTo(1L);
+        assertThat(customerDetailsService.findIdByUserLogin(LOGIN).block()).isEqualTo(1L);
+
+        verify(customerDetailsRepository).findIdByUserLogin(LOGIN);
+    }
+
+    @Test
+    void testIdOfUserIsEvictedOnUpdate() {
+        customerDetailsService.findIdByUserLogin(LOGIN).block();
+
+        customerDetailsService.update(new CustomerDetails().id(1L)).block();
+        customerDetailsService.findIdByUserLogin(LOGIN).block();
+
+        verify(customerDetailsRepository, times(2)).findIdByUserLogin(LOGIN);
+    }
+
+    @Test
+    void testIdOfUserIsEvictedOnDelete() {
+        when(customerDetailsRepository.findIdByUserLogin(LOGIN)).thenReturn(Mono.just(1L), Mono.empty());
+        customerDetailsService.findIdByUserLogin(LOGIN).block();
+
+        customerDetailsService.delete(1L).block();
+
+        assertThat(customerDetailsService.findIdByUserLogin(LOGIN).blockOptional()).isEmpty();
+    }
+}
@@ -0,0 +1,154 @@
+package org.iqkv.boutique.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.domain.IdempotencyKey;
+import org.iqkv.boutique.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Test class for the {@link IdempotencyService}.
+ */
+class IdempotencyServiceTest {
+
+    private static final String KEY = "key";
+
+    private static final String REQUEST_HASH = "hash";
+
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setup() {
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        when(idempotencyKeyRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(Mono.just(1L));
+        when(idempotencyKeyRepository.complete(anyString(), any(), any(), any(), any())).thenReturn(Mono.just(1L));
+        when(idempotencyKeyRepository.deleteById(anyString())).thenReturn(Mono.empty());
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIdempotency().setWaitTimeout(Duration.ofMillis(500));
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, applicationProperties);
+    }
+
+    @Test
+    void testCompletedKeyIsReplayed() {
+        when(idempotencyKeyRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(Mono.just(0L));
+        when(idempotencyKeyRepository.findById(KEY)).thenReturn(Mono.just(completed(REQUEST_HASH)));
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotencyKey replayed = idempotencyService.execute(KEY, REQUEST_HASH, () -> run(runs)).block();
+
+        assertThat(replayed.getResponseStatus()).isEqualTo(201);
+        assertThat(runs).hasValue(0);
+
+        // The response is now served from memory
+        assertThat(idempotencyService.execute(KEY, REQUEST_HASH, () -> run(runs)).block()).isSameAs(replayed);
+        verify(idempotencyKeyRepository).findById(KEY);
+    }
+
+    @Test
+    void testConcurrentDuplicateWaitsAndReplays() {
+        Sinks.One<IdempotencyKey> response = Sinks.one();
+
+        Mono<IdempotencyKey> first = idempotencyService.execute(KEY, REQUEST_HASH, response::asMono).cache();
+        first.subscribe();
+        Mono<IdempotencyKey> duplicate = idempotencyService.execute(KEY, REQUEST_HASH, () -> Mono.error(new AssertionError())).cache();
+        duplicate.subscribe();
+        response.tryEmitValue(new IdempotencyKey().responseStatus(201).responseBody(new byte[] { 1 }));
+
+        assertThat(first.block()).isNull();
+        IdempotencyKey replayed = duplicate.block();
+        assertThat(replayed.getResponseStatus()).isEqualTo(201);
+        assertThat(replayed.getResponseBody()).containsExactly(1);
+        verify(idempotencyKeyRepository).acquire(eq(KEY), eq(REQUEST_HASH), any(), any());
+        verify(idempotencyKeyRepository).complete(eq(KEY), eq(201), any(), any(), any());
+    }
+
+    @Test
+    void testFailedActionReleasesKey() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThatThrownBy(
+            () -> idempotencyService.execute(KEY, REQUEST_HASH, () -> Mono.error(new IllegalStateException("failed"))).block()
+        ).hasMessage("failed");
+
+        verify(idempotencyKeyRepository).deleteById(KEY);
+        assertThat(idempotencyService.execute(KEY, REQUEST_HASH, () -> run(runs)).block()).isNull();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void testCancelledActionReleasesKey() {
+        Disposable first = idempotencyService.execute(KEY, REQUEST_HASH, Mono::never).subscribe();
+        AtomicInteger runs = new AtomicInteger();
+        Mono<IdempotencyKey> duplicate = idempotencyService.execute(KEY, REQUEST_HASH, () -> run(runs)).cache();
+        duplicate.subscribe();
+
+        first.dispose();
+
+        verify(idempotencyKeyRepository).deleteById(KEY);
+        // The waiting duplicate runs the request again
+        assertThat(duplicate.block()).isNull();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void testDuplicateWaitIsBounded() {
+        idempotencyService.execute(KEY, REQUEST_HASH, Mono::never).subscribe();
+
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, REQUEST_HASH, Mono::never).block()).isInstanceOf(
+            IdempotencyConflictException.class
+        );
+        verify(idempotencyKeyRepository, times(1)).acquire(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void testKeyOfAnotherBodyIsRejected() {
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute(KEY, REQUEST_HASH, () -> run(runs)).block();
+
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, "other", () -> run(runs)).block()).isInstanceOf(
+            IdempotencyKeyMismatchException.class
+        );
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void testKeyOfAnotherBodyInFlightOnAnotherNodeIsRejected() {
+        when(idempotencyKeyRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(Mono.just(0L));
+        when(idempotencyKeyRepository.findById(KEY)).thenReturn(
+            Mono.just(new IdempotencyKey().id(KEY).requestHash(REQUEST_HASH).expiresAt(Instant.now().plusSeconds(60)))
+        );
+
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, "other", Mono::never).block()).isInstanceOf(
+            IdempotencyKeyMismatchException.class
+        );
+    }
+
+    private static Mono<IdempotencyKey> run(AtomicInteger runs) {
+        return Mono.fromSupplier(() -> {
+            runs.incrementAndGet();
+            return new IdempotencyKey().responseStatus(201);
+        });
+    }
+
+    private static IdempotencyKey completed(String requestHash) {
+        return new IdempotencyKey().id(KEY).requestHash(requestHash).responseStatus(201).expiresAt(Instant.now().plusSeconds(60));
+    }
+}
@@ -0,0 +1,79 @@
+package org.iqkv.boutique.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.YearMonth;
+import java.util.List;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.repository.PartitionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link PartitionMaintenanceService}.
+ */
+class PartitionMaintenanceServiceTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2026, 10);
+
+    private PartitionManager partitionManager;
+
+    private ApplicationProperties applicationProperties;
+
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    @BeforeEach
+    void setup() {
+        partitionManager = mock(PartitionManager.class);
+        when(partitionManager.createPartitions(any(), anyList())).thenReturn(Mono.empty());
+        when(partitionManager.archivePartition(anyString(), any(), anyString())).thenReturn(Mono.empty());
+        when(partitionManager.findPartitions(anyString())).thenReturn(
+            Flux.just(YearMonth.of(2025, 12), YearMonth.of(2025, 10), YearMonth.of(2026, 11))
+        );
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getDatabase().getPartitioning().setPremadeMonths(1);
+        partitionMaintenanceService = new PartitionMaintenanceService(partitionManager, applicationProperties);
+    }
+
+    @Test
+    void testComingPartitionsAreCreated() {
+        partitionMaintenanceService.maintainPartitions(CURRENT).block();
+
+        InOrder order = inOrder(partitionManager);
+        order.verify(partitionManager).createPartitions(CURRENT, List.of("shopping_cart", "product_order"));
+        order.verify(partitionManager).createPartitions(CURRENT.plusMonths(1), List.of("shopping_cart", "product_order"));
+        verify(partitionManager, never()).archivePartition(anyString(), any(), anyString());
+    }
+
+    @Test
+    void testExpiredPartitionsAreArchivedLinesFirst() {
+        applicationProperties.getDatabase().getPartitioning().setRetentionMonths(10);
+
+        partitionMaintenanceService.maintainPartitions(CURRENT).block();
+
+        InOrder order = inOrder(partitionManager);
+        order.verify(partitionManager).archivePartition("product_order", YearMonth.of(2025, 10), "archive");
+        order.verify(partitionManager).archivePartition("shopping_cart", YearMonth.of(2025, 10), "archive");
+        verify(partitionManager, never()).archivePartition(anyString(), eq(YearMonth.of(2025, 12)), anyString());
+    }
+
+    @Test
+    void testFailureDoesNotStopTheMaintenance() {
+        when(partitionManager.createPartitions(eq(CURRENT), anyList())).thenReturn(Mono.error(new IllegalStateException("exists")));
+
+        partitionMaintenanceService.maintainPartitions(CURRENT).block();
+
+        verify(partitionManager).createPartitions(eq(CURRENT.plusMonths(1)), anyList());
+    }
+}
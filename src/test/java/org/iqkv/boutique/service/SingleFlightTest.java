@@ -0,0 +1,67 @@
+package org.iqkv.boutique.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Test class for the {@link SingleFlight} utility class.
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testConcurrentLoadsAreShared() {
+        Sinks.One<String> result = Sinks.one();
+        List<String> values = new ArrayList<>();
+
+        singleFlight.execute(1L, () -> load(result.asMono())).subscribe(values::add);
+        singleFlight.execute(1L, () -> load(Mono.just("other"))).subscribe(values::add);
+        assertThat(singleFlight.size()).isEqualTo(1);
+
+        result.tryEmitValue("value");
+
+        assertThat(values).containsExactly("value", "value");
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.size()).isZero();
+    }
+
+    @Test
+    void testDifferentKeysAreNotShared() {
+        singleFlight.execute(1L, () -> load(Mono.never())).subscribe();
+        singleFlight.execute(2L, () -> load(Mono.never())).subscribe();
+
+        assertThat(loads).hasValue(2);
+        assertThat(singleFlight.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testKeyIsForgottenOnCompletion() {
+        assertThat(singleFlight.execute(1L, () -> load(Mono.just("first"))).block()).isEqualTo("first");
+        assertThat(singleFlight.execute(1L, () -> load(Mono.just("second"))).block()).isEqualTo("second");
+
+        assertThat(loads).hasValue(2);
+        assertThat(singleFlight.size()).isZero();
+    }
+
+    @Test
+    void testKeyIsForgottenOnError() {
+        Mono<String> failed = singleFlight.execute(1L, () -> load(Mono.error(new IllegalStateException())));
+
+        assertThat(failed.onErrorReturn("error").block()).isEqualTo("error");
+        assertThat(singleFlight.size()).isZero();
+    }
+
+    private Mono<String> load(Mono<String> value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
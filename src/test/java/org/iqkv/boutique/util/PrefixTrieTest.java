@@ -0,0 +1,29 @@
+package org.iqkv.boutique.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link PrefixTrie} utility class.
+ */
+class PrefixTrieTest {
+
+    private final PrefixTrie trie = PrefixTrie.of("/api", "/app", "/application");
+
+    @Test
+    void testShortestPrefixIsMatched() {
+        assertThat(trie.matchedPrefixLength("/api")).isEqualTo(4);
+        assertThat(trie.matchedPrefixLength("/api/products")).isEqualTo(4);
+        assertThat(trie.matchedPrefixLength("/application")).isEqualTo(4);
+        assertThat(trie.matchesPrefixOf("/app/main.js")).isTrue();
+    }
+
+    @Test
+    void testOtherStringsAreNotMatched() {
+        assertThat(trie.matchedPrefixLength("/ap")).isEqualTo(-1);
+        assertThat(trie.matchedPrefixLength("/content")).isEqualTo(-1);
+        assertThat(trie.matchedPrefixLength("")).isEqualTo(-1);
+        assertThat(trie.matchesPrefixOf("api")).isFalse();
+    }
+}
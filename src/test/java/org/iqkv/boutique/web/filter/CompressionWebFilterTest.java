@@ -0,0 +1,167 @@
+package org.iqkv.boutique.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link CompressionWebFilter}.
+ */
+class CompressionWebFilterTest {
+
+    private static final String LARGE_BODY = "{\"name\":\"product\"},".repeat(200);
+
+    private static final String SMALL_BODY = "{\"login\":\"user\"}";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CompressionWebFilter filter;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Compression.Route products = new ApplicationProperties.Compression.Route();
+        products.setPattern("/api/products/**");
+        products.setAlgorithm("deflate");
+        products.setLevel(1);
+        ApplicationProperties.Compression.Route account = new ApplicationProperties.Compression.Route();
+        account.setPattern("/api/account");
+        account.setEnabled(false);
+        applicationProperties.getCompression().setRoutes(List.of(products, account));
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new CompressionWebFilter(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void testCompressWithDefaultPolicy() throws IOException {
+        MockServerWebExchange exchange = exchange("/api/product-orders", "gzip, deflate, br");
+
+        filter.filter(exchange, write(MediaType.APPLICATION_JSON, LARGE_BODY)).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(headers.getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = body(exchange);
+        assertThat(headers.getContentLength()).isEqualTo(body.length);
+        assertThat(body.length).isLessThan(LARGE_BODY.length());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(LARGE_BODY);
+        }
+        double input = meterRegistry.get("http.server.compression.input").tag("route", "default").counter().count();
+        double saved = meterRegistry.get("http.server.compression.saved").tag("route", "default").counter().count();
+        assertThat(input).isEqualTo(LARGE_BODY.length());
+        assertThat(saved).isEqualTo(LARGE_BODY.length() - body.length);
+        assertThat(meterRegistry.get("http.server.compression").tag("route", "default").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCompressWithRoutePolicy() throws IOException {
+        MockServerWebExchange exchange = exchange("/api/products", "gzip, deflate");
+
+        filter.filter(exchange, write(MediaType.APPLICATION_JSON, LARGE_BODY)).block();
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("deflate");
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(body(exchange)))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(LARGE_BODY);
+        }
+        assertThat(meterRegistry.get("http.server.compression").tag("route", "/api/products/**").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSmallResponsesAreNotCompressed() {
+        MockServerWebExchange exchange = exchange("/api/product-orders", "gzip");
+
+        filter.filter(exchange, write(MediaType.APPLICATION_JSON, SMALL_BODY)).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(headers.getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(new String(body(exchange), StandardCharsets.UTF_8)).isEqualTo(SMALL_BODY);
+    }
+
+    @Test
+    void testDisabledRouteIsNotCompressed() {
+        MockServerWebExchange exchange = exchange("/api/account", "gzip");
+
+        filter.filter(exchange, write(MediaType.APPLICATION_JSON, LARGE_BODY)).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(headers.containsKey(HttpHeaders.VARY)).isFalse();
+        assertThat(new String(body(exchange), StandardCharsets.UTF_8)).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    void testStreamingResponsesAreNotCompressed() {
+        MockServerWebExchange exchange = exchange("/api/product-orders", "gzip");
+
+        filter.filter(exchange, write(MediaType.APPLICATION_NDJSON, LARGE_BODY)).block();
+
+        assertThat(exchange.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(new String(body(exchange), StandardCharsets.UTF_8)).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    void testEncodingNotAccepted() {
+        MockServerWebExchange exchange = exchange("/api/product-orders", "br, gzip;q=0");
+
+        filter.filter(exchange, write(MediaType.APPLICATION_JSON, LARGE_BODY)).block();
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(headers.getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(new String(body(exchange), StandardCharsets.UTF_8)).isEqualTo(LARGE_BODY);
+    }
+
+    private static MockServerWebExchange exchange(String path, String acceptEncoding) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+    }
+
+    private static WebFilterChain write(MediaType contentType, String body) {
+        return exchange -> {
+            exchange.getResponse().getHeaders().setContentType(contentType);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            // Written in two chunks, as a Flux encoder would
+            int half = bytes.length / 2;
+            return exchange
+                .getResponse()
+                .writeWith(
+                    Flux.just(
+                        exchange.getResponse().bufferFactory().wrap(Arrays.copyOfRange(bytes, 0, half)),
+                        exchange.getResponse().bufferFactory().wrap(Arrays.copyOfRange(bytes, half, bytes.length))
+                    )
+                );
+        };
+    }
+
+    private static byte[] body(MockServerWebExchange exchange) {
+        return DataBufferUtils.join(exchange.getResponse().getBody())
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .switchIfEmpty(Mono.just(new byte[0]))
+            .block();
+    }
+}
@@ -0,0 +1,175 @@
+package org.iqkv.boutique.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.iqkv.boutique.repository.IdempotencyKeyRepository;
+import org.iqkv.boutique.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link IdempotencyWebFilter}.
+ */
+class IdempotencyWebFilterTest {
+
+    private AtomicInteger processed;
+
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyWebFilter filter;
+
+    @BeforeEach
+    void setup() {
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        when(idempotencyKeyRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(Mono.just(1L));
+        when(idempotencyKeyRepository.complete(anyString(), any(), any(), any(), any())).thenReturn(Mono.just(1L));
+        when(idempotencyKeyRepository.deleteById(anyString())).thenReturn(Mono.empty());
+        processed = new AtomicInteger();
+        filter = new IdempotencyWebFilter(
+            new IdempotencyService(idempotencyKeyRepository, new ApplicationProperties()),
+            new ObjectMapper(),
+            DataSize.ofKilobytes(256)
+        );
+    }
+
+    @Test
+    void testRetryIsReplayed() {
+        MockServerWebExchange first = exchange("key", "{\"quantity\":1}");
+        filter.filter(first, chain()).block();
+
+        MockServerWebExchange retry = exchange("key", "{\"quantity\":1}");
+        filter.filter(retry, chain()).block();
+
+        assertThat(processed).hasValue(1);
+        assertThat(retry.getResponse().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getResponse().getHeaders().getFirst(IdempotencyWebFilter.IDEMPOTENT_REPLAYED)).isEqualTo("true");
+        assertThat(retry.getResponse().getHeaders().getLocation()).hasToString("/api/product-orders/1");
+        assertThat(retry.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1,\"quantity\":1}");
+    }
+
+    @Test
+    void testRetryWithAnotherBodyIsRejected() {
+        filter.filter(exchange("key", "{\"quantity\":1}"), chain()).block();
+
+        assertThatThrownBy(() -> filter.filter(exchange("key", "{\"quantity\":2}"), chain()).block())
+            .isInstanceOf(ResponseStatusException.class)
+            .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+            .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(processed).hasValue(1);
+    }
+
+    @Test
+    void testReplayIsCompressedByOuterFilter() throws IOException {
+        CompressionWebFilter compression = new CompressionWebFilter(new ApplicationProperties(), new SimpleMeterRegistry());
+        String body = "{\"description\":\"" + "boutique ".repeat(200) + "\"}";
+        compression.filter(exchange("key", body), exchange -> filter.filter(exchange, chain())).block();
+
+        MockServerWebExchange retry = exchange("key", body);
+        compression.filter(retry, exchange -> filter.filter(exchange, chain())).block();
+
+        assertThat(processed).hasValue(1);
+        assertThat(retry.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(retry.getResponse().getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        byte[] compressed = DataBufferUtils.join(retry.getResponse().getBody())
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .block();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1," + body.substring(1));
+        }
+    }
+
+    @Test
+    void testTooLargeRequestIsRejected() {
+        IdempotencyWebFilter limitedFilter = limitedFilter(DataSize.ofBytes(16));
+
+        assertThatThrownBy(() -> limitedFilter.filter(exchange("key", "{\"quantity\":1,\"price\":10}"), chain()).block())
+            .isInstanceOf(ResponseStatusException.class)
+            .extracting(e -> ((ResponseStatusException) e).getStatusCode())
+            .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(processed).hasValue(0);
+    }
+
+    @Test
+    void testTooLargeResponseIsWrittenWithoutBeingRecorded() {
+        IdempotencyWebFilter limitedFilter = limitedFilter(DataSize.ofBytes(20));
+
+        MockServerWebExchange first = exchange("key", "{\"quantity\":1}");
+        limitedFilter.filter(first, chain()).block();
+        MockServerWebExchange retry = exchange("key", "{\"quantity\":1}");
+        limitedFilter.filter(retry, chain()).block();
+
+        assertThat(first.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":1,\"quantity\":1}");
+        assertThat(retry.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":2,\"quantity\":1}");
+        assertThat(retry.getResponse().getHeaders().getFirst(IdempotencyWebFilter.IDEMPOTENT_REPLAYED)).isNull();
+        assertThat(processed).hasValue(2);
+    }
+
+    @Test
+    void testRequestWithoutKeyIsNotRecorded() {
+        filter.filter(exchange(null, "{\"quantity\":1}"), chain()).block();
+        filter.filter(exchange(null, "{\"quantity\":1}"), chain()).block();
+
+        assertThat(processed).hasValue(2);
+    }
+
+    private IdempotencyWebFilter limitedFilter(DataSize maxInMemorySize) {
+        return new IdempotencyWebFilter(
+            new IdempotencyService(idempotencyKeyRepository, new ApplicationProperties()),
+            new ObjectMapper(),
+            maxInMemorySize
+        );
+    }
+
+    private WebFilterChain chain() {
+        return exchange ->
+            DataBufferUtils.join(exchange.getRequest().getBody()).flatMap(buffer -> {
+                String body = buffer.toString(StandardCharsets.UTF_8);
+                DataBufferUtils.release(buffer);
+                int id = processed.incrementAndGet();
+                exchange.getResponse().setStatusCode(HttpStatus.CREATED);
+                exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                exchange.getResponse().getHeaders().set(HttpHeaders.LOCATION, "/api/product-orders/" + id);
+                byte[] response = ("{\"id\":" + id + "," + body.substring(1)).getBytes(StandardCharsets.UTF_8);
+                return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(response)));
+            });
+    }
+
+    private static MockServerWebExchange exchange(String key, String body) {
+        MockServerHttpRequest.BodyBuilder request = MockServerHttpRequest.post("/api/product-orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        if (key != null) {
+            request.header(IdempotencyWebFilter.IDEMPOTENCY_KEY, key);
+        }
+        return MockServerWebExchange.from(request.body(body));
+    }
+}
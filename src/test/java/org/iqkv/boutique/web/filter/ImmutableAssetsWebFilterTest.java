@@ -0,0 +1,44 @@
+package org.iqkv.boutique.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+/**
+ * Test class for the {@link ImmutableAssetsWebFilter}.
+ */
+class ImmutableAssetsWebFilterTest {
+
+    private final ImmutableAssetsWebFilter filter = new ImmutableAssetsWebFilter();
+
+    @Test
+    void testContentHashedNames() {
+        assertThat(ImmutableAssetsWebFilter.isContentHashed("/main.1a2b3c4d.js")).isTrue();
+        assertThat(ImmutableAssetsWebFilter.isContentHashed("/app_entities.0123abcd.chunk.js")).isTrue();
+        assertThat(ImmutableAssetsWebFilter.isContentHashed("/content/main.0123456789abcdef0123.css")).isTrue();
+        assertThat(ImmutableAssetsWebFilter.isContentHashed("/sw.js")).isFalse();
+        assertThat(ImmutableAssetsWebFilter.isContentHashed("/index.html")).isFalse();
+        assertThat(ImmutableAssetsWebFilter.isContentHashed("/main.js")).isFalse();
+    }
+
+    @Test
+    void testImmutableCacheControl() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/main.1a2b3c4d.js"));
+
+        filter.filter(exchange, e -> e.getResponse().setComplete()).block();
+
+        assertThat(exchange.getResponse().getHeaders().getCacheControl()).isEqualTo(ImmutableAssetsWebFilter.IMMUTABLE_CACHE_CONTROL);
+    }
+
+    @Test
+    void testOtherResourcesAreUnchanged() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/sw.js"));
+
+        filter.filter(exchange, e -> e.getResponse().setComplete()).block();
+
+        assertThat(exchange.getResponse().getHeaders().containsKey(HttpHeaders.CACHE_CONTROL)).isFalse();
+    }
+}
@@ -0,0 +1,152 @@
+package org.iqkv.boutique.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.iqkv.boutique.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Test class for the {@link OAuth2ReactiveRefreshTokensWebFilter}.
+ */
+class OAuth2ReactiveRefreshTokensWebFilterTest {
+
+    private static final ClientRegistration REGISTRATION = ClientRegistration.withRegistrationId("oidc")
+        .clientId("client")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .redirectUri("http://localhost/login/oauth2/code/oidc")
+        .authorizationUri("http://idp/authorize")
+        .tokenUri("http://idp/token")
+        .build();
+
+    private final AtomicInteger filtered = new AtomicInteger();
+
+    private final WebFilterChain chain = exchange -> Mono.fromRunnable(filtered::incrementAndGet);
+
+    private ReactiveOAuth2AuthorizedClientManager clientManager;
+
+    private OAuth2ReactiveRefreshTokensWebFilter filter;
+
+    @BeforeEach
+    void setup() {
+        clientManager = mock(ReactiveOAuth2AuthorizedClientManager.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getTokenRefresh().setSkew(Duration.ofMinutes(1));
+        filter = new OAuth2ReactiveRefreshTokensWebFilter(clientManager, applicationProperties);
+    }
+
+    @Test
+    void testClientIsOnlyAuthorizedWhenTokenIsAboutToExpire() {
+        when(clientManager.authorize(any())).thenReturn(Mono.just(client(Instant.now().plus(Duration.ofHours(1)))));
+
+        filter.filter(exchange("user"), chain).block();
+        filter.filter(exchange("user"), chain).block();
+
+        verify(clientManager, times(1)).authorize(any());
+        assertThat(filtered).hasValue(2);
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneRefresh() {
+        Sinks.One<OAuth2AuthorizedClient> refreshed = Sinks.one();
+        when(clientManager.authorize(any())).thenReturn(refreshed.asMono());
+
+        Mono<Void> first = filter.filter(exchange("user"), chain).cache();
+        first.subscribe();
+        Mono<Void> second = filter.filter(exchange("user"), chain).cache();
+        second.subscribe();
+        assertThat(filtered).hasValue(0);
+
+        refreshed.tryEmitValue(client(Instant.now().plus(Duration.ofHours(1))));
+        first.block();
+        second.block();
+
+        verify(clientManager, times(1)).authorize(any());
+        assertThat(filtered).hasValue(2);
+    }
+
+    @Test
+    void testExpiryIsReplacedAfterRefresh() {
+        when(clientManager.authorize(any())).thenReturn(
+            Mono.just(client(Instant.now().plusSeconds(30))),
+            Mono.just(client(Instant.now().plus(Duration.ofHours(1))))
+        );
+
+        // The first token expires within the skew: the next request refreshes it
+        filter.filter(exchange("user"), chain).block();
+        filter.filter(exchange("user"), chain).block();
+        // The refreshed token does not
+        filter.filter(exchange("user"), chain).block();
+
+        verify(clientManager, times(2)).authorize(any());
+        assertThat(filtered).hasValue(3);
+    }
+
+    @Test
+    void testRefreshFailureIsNotCached() {
+        when(clientManager.authorize(any())).thenReturn(
+            Mono.error(new IllegalStateException("IdP unavailable")),
+            Mono.just(client(Instant.now().plus(Duration.ofHours(1))))
+        );
+
+        assertThatThrownBy(() -> filter.filter(exchange("user"), chain).block()).hasMessage("IdP unavailable");
+        filter.filter(exchange("user"), chain).block();
+        filter.filter(exchange("user"), chain).block();
+
+        verify(clientManager, times(2)).authorize(any());
+        assertThat(filtered).hasValue(2);
+    }
+
+    @Test
+    void testExpiriesAreKeptPerUser() {
+        when(clientManager.authorize(any())).thenReturn(Mono.just(client(Instant.now().plus(Duration.ofHours(1)))));
+
+        filter.filter(exchange("user"), chain).block();
+        filter.filter(exchange("admin"), chain).block();
+
+        verify(clientManager, times(2)).authorize(any());
+    }
+
+    private static ServerWebExchange exchange(String name) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        OAuth2AuthenticationToken authentication = new OAuth2AuthenticationToken(
+            new DefaultOAuth2User(authorities, Map.of("sub", name), "sub"),
+            authorities,
+            REGISTRATION.getRegistrationId()
+        );
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/account")).mutate().principal(Mono.just(authentication)).build();
+    }
+
+    private static OAuth2AuthorizedClient client(Instant expiresAt) {
+        return new OAuth2AuthorizedClient(
+            REGISTRATION,
+            "user",
+            new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", expiresAt.minus(Duration.ofHours(2)), expiresAt)
+        );
+    }
+}
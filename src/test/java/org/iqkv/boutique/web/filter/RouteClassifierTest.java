@@ -0,0 +1,45 @@
+package org.iqkv.boutique.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link RouteClassifier} utility class.
+ */
+class RouteClassifierTest {
+
+    @Test
+    void testClientRoutes() {
+        assertThat(RouteClassifier.isClientRoute("/")).isTrue();
+        assertThat(RouteClassifier.isClientRoute("/product")).isTrue();
+        assertThat(RouteClassifier.isClientRoute("/product/1/edit")).isTrue();
+        assertThat(RouteClassifier.isClientRoute("/ap")).isTrue();
+        assertThat(RouteClassifier.isClientRoute("/app/account")).isTrue();
+    }
+
+    @Test
+    void testServerRoutes() {
+        assertThat(RouteClassifier.isClientRoute("/api")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/api/products")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/management/health")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/v3/api-docs")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/login/oauth2/code/oidc")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/oauth2/authorization/oidc")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/favicon.ico")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("/foo/bar.js")).isFalse();
+        assertThat(RouteClassifier.isClientRoute("")).isFalse();
+    }
+
+    @Test
+    void testStaticResources() {
+        assertThat(RouteClassifier.isStaticResource("/app")).isTrue();
+        assertThat(RouteClassifier.isStaticResource("/app/main.js")).isTrue();
+        assertThat(RouteClassifier.isStaticResource("/i18n/en.json")).isTrue();
+        assertThat(RouteClassifier.isStaticResource("/content/images/logo.png")).isTrue();
+        assertThat(RouteClassifier.isStaticResource("/swagger-ui/index.html")).isTrue();
+        assertThat(RouteClassifier.isStaticResource("/application")).isFalse();
+        assertThat(RouteClassifier.isStaticResource("/api/products")).isFalse();
+        assertThat(RouteClassifier.isStaticResource("/")).isFalse();
+    }
+}
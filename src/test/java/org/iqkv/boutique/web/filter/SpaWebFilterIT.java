@@ -32,6 +32,11 @@ class SpaWebFilterIT {
             .isEqualTo(SpaWebFilterTestController.INDEX_HTML_TEST_CONTENT);
     }
 
+    @Test
+    void testIndexSetsCsrfCookie() {
+        webTestClient.get().uri("/first-level").exchange().expectStatus().isOk().expectCookie().exists("XSRF-TOKEN");
+    }
+
     @Test
     @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
     void testFilterDoesNotForwardToIndexForV3ApiDocs() {
@@ -0,0 +1,69 @@
+package org.iqkv.boutique.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.iqkv.boutique.aop.routing.WriteMarker;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link WriteMarkerWebFilter}.
+ */
+class WriteMarkerWebFilterTest {
+
+    private final WriteMarkerWebFilter filter = new WriteMarkerWebFilter(Duration.ofSeconds(10));
+
+    @Test
+    void testWriteIsSentToClient() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/products"));
+
+        filter.filter(exchange, write(1234L)).block();
+        exchange.getResponse().setComplete().block();
+
+        ResponseCookie cookie = exchange.getResponse().getCookies().getFirst(WriteMarkerWebFilter.WROTE_AT_COOKIE);
+        assertThat(cookie.getValue()).isEqualTo("1234");
+        assertThat(cookie.getMaxAge()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(cookie.isHttpOnly()).isTrue();
+    }
+
+    @Test
+    void testMarkerIsReadFromClient() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/products").cookie(new HttpCookie(WriteMarkerWebFilter.WROTE_AT_COOKIE, "1234"))
+        );
+        long[] wroteAt = new long[1];
+
+        filter.filter(exchange, read(wroteAt)).block();
+        exchange.getResponse().setComplete().block();
+
+        assertThat(wroteAt[0]).isEqualTo(1234L);
+        // Nothing was written: the cookie is left to expire
+        assertThat(exchange.getResponse().getCookies()).doesNotContainKey(WriteMarkerWebFilter.WROTE_AT_COOKIE);
+    }
+
+    @Test
+    void testInvalidMarkerIsIgnored() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/products").cookie(new HttpCookie(WriteMarkerWebFilter.WROTE_AT_COOKIE, "yesterday"))
+        );
+        long[] wroteAt = { -1 };
+
+        filter.filter(exchange, read(wroteAt)).block();
+
+        assertThat(wroteAt[0]).isZero();
+    }
+
+    private static WebFilterChain read(long[] wroteAt) {
+        return exchange -> Mono.deferContextual(context -> Mono.fromRunnable(() -> wroteAt[0] = context.get(WriteMarker.class).getWroteAt()));
+    }
+
+    private static WebFilterChain write(long now) {
+        return exchange -> Mono.deferContextual(context -> Mono.fromRunnable(() -> context.get(WriteMarker.class).recordWrite(now)));
+    }
+}
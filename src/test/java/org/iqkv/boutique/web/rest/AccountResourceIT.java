@@ -1,23 +1,36 @@
 package org.iqkv.boutique.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.iqkv.boutique.test.util.OAuth2TestUtil.TEST_USER_LOGIN;
 import static org.iqkv.boutique.test.util.OAuth2TestUtil.authenticationToken;
 import static org.iqkv.boutique.test.util.OAuth2TestUtil.registerAuthenticationToken;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.*;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.iqkv.boutique.IntegrationTest;
+import org.iqkv.boutique.domain.CustomerDetails;
+import org.iqkv.boutique.domain.ShoppingCart;
+import org.iqkv.boutique.domain.enumeration.OrderStatus;
+import org.iqkv.boutique.domain.enumeration.PaymentMethod;
+import org.iqkv.boutique.repository.EntityManager;
 import org.iqkv.boutique.security.AuthoritiesConstants;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 /**
@@ -38,6 +51,9 @@ class AccountResourceIT {
     @Autowired
     private ClientRegistration clientRegistration;
 
+    @Autowired
+    private EntityManager em;
+
     @BeforeEach
     public void setup() {
         claims = new HashMap<>();
@@ -46,6 +62,11 @@ class AccountResourceIT {
         claims.put("email", "jane.doe@jhipster.com");
     }
 
+    @AfterEach
+    public void cleanup() {
+        ShoppingCartResourceIT.deleteEntities(em);
+    }
+
     @Test
     void testGetExistingAccount() {
         webTestClient
@@ -68,6 +89,36 @@ class AccountResourceIT {
             .isEqualTo(AuthoritiesConstants.ADMIN);
     }
 
+    @Test
+    void testGetUnmodifiedAccount() {
+        WebTestClient client = webTestClient
+            .mutateWith(
+                mockAuthentication(registerAuthenticationToken(authorizedClientService, clientRegistration, authenticationToken(claims)))
+            )
+            .mutateWith(csrf());
+        String etag = client
+            .get()
+            .uri("/api/account")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(byte[].class)
+            .getResponseHeaders()
+            .getETag();
+
+        client
+            .get()
+            .uri("/api/account")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, etag);
+    }
+
     @Test
     void testGetUnknownAccount() {
         webTestClient.get().uri("/api/account").accept(MediaType.APPLICATION_JSON).exchange().expectStatus().is3xxRedirection();
@@ -100,4 +151,107 @@ class AccountResourceIT {
             .expectBody(String.class)
             .isEqualTo(TEST_USER_LOGIN);
     }
+
+    @Test
+    @WithMockUser("no-customer")
+    void testGetCartsOfUserWithoutCustomer() {
+        webTestClient
+            .get()
+            .uri("/api/account/carts")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .json("[]");
+    }
+
+    @Test
+    @WithMockUser(TEST_USER_LOGIN)
+    void testGetCartsWithIncompleteCursor() {
+        webTestClient
+            .get()
+            .uri("/api/account/carts?placedBefore=2024-06-04T00:00:00Z")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void testGetCartsNewestFirst() {
+        CustomerDetails customer = em.insert(CustomerDetailsResourceIT.createEntity(em)).block();
+        CustomerDetails otherCustomer = em.insert(CustomerDetailsResourceIT.createUpdatedEntity(em)).block();
+        ShoppingCart oldest = insertCart(customer, "2026-08-01T10:00:00Z");
+        ShoppingCart newest = insertCart(customer, "2026-10-01T10:00:00Z");
+        ShoppingCart middle = insertCart(customer, "2026-09-01T10:00:00Z");
+        // The newest cart of all, of another customer
+        insertCart(otherCustomer, "2026-10-15T10:00:00Z");
+
+        List<Long> ids = getCarts(customer, "/api/account/carts")
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBodyList(ShoppingCart.class)
+            .returnResult()
+            .getResponseBody()
+            .stream()
+            .map(ShoppingCart::getId)
+            .toList();
+
+        assertThat(ids).containsExactly(newest.getId(), middle.getId(), oldest.getId());
+    }
+
+    @Test
+    void testGetCartsFollowsNextLinkAcrossPlacedDateTie() {
+        CustomerDetails customer = em.insert(CustomerDetailsResourceIT.createEntity(em)).block();
+        CustomerDetails otherCustomer = em.insert(CustomerDetailsResourceIT.createUpdatedEntity(em)).block();
+        ShoppingCart oldest = insertCart(customer, "2026-08-01T10:00:00Z");
+        ShoppingCart first = insertCart(customer, "2026-09-01T10:00:00Z");
+        ShoppingCart second = insertCart(customer, "2026-09-01T10:00:00Z");
+        insertCart(otherCustomer, "2026-09-01T10:00:00Z");
+
+        // Carts placed at the same time are ordered by decreasing id
+        String uri = "/api/account/carts?size=1";
+        List<Long> ids = new ArrayList<>();
+        for (int page = 0; uri != null && page < 5; page++) {
+            EntityExchangeResult<List<ShoppingCart>> result = getCarts(customer, uri).expectBodyList(ShoppingCart.class).returnResult();
+            result.getResponseBody().forEach(cart -> ids.add(cart.getId()));
+            uri = nextLink(result.getResponseHeaders().getFirst(HttpHeaders.LINK));
+        }
+
+        assertThat(ids).containsExactly(second.getId(), first.getId(), oldest.getId());
+    }
+
+    private WebTestClient.ResponseSpec getCarts(CustomerDetails customer, String uri) {
+        return webTestClient
+            .mutateWith(mockUser(customer.getUser().getLogin()))
+            .get()
+            .uri(uri)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk();
+    }
+
+    private ShoppingCart insertCart(CustomerDetails customer, String placedDate) {
+        return em
+            .insert(
+                new ShoppingCart()
+                    .placedDate(Instant.parse(placedDate))
+                    .status(OrderStatus.COMPLETED)
+                    .totalPrice(BigDecimal.ONE)
+                    .paymentMethod(PaymentMethod.CREDIT_CARD)
+                    .customerDetails(customer)
+            )
+            .block();
+    }
+
+    private static String nextLink(String link) {
+        if (link == null || !link.contains("rel=\"next\"")) {
+            return null;
+        }
+        return link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+    }
 }
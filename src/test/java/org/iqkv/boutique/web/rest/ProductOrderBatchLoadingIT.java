@@ -0,0 +1,93 @@
+package org.iqkv.boutique.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.iqkv.boutique.IntegrationTest;
+import org.iqkv.boutique.domain.Product;
+import org.iqkv.boutique.domain.ProductOrder;
+import org.iqkv.boutique.domain.ShoppingCart;
+import org.iqkv.boutique.repository.EntityManager;
+import org.iqkv.boutique.repository.ProductOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for the {@link ProductOrderRepository}, with the relationships of the orders batch loaded.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "application.database.batch-loading=true")
+class ProductOrderBatchLoadingIT {
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Product product;
+
+    private ShoppingCart cart;
+
+    private ShoppingCart otherCart;
+
+    @BeforeEach
+    void initTest() {
+        product = em.insert(ProductResourceIT.createEntity(em)).block();
+        cart = em.insert(ShoppingCartResourceIT.createEntity(em)).block();
+        otherCart = em.insert(ShoppingCartResourceIT.createUpdatedEntity(em)).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        ProductOrderResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void findAllByStitchesTheRelationships() {
+        ProductOrder first = insert(cart);
+        ProductOrder second = insert(cart);
+        ProductOrder third = insert(otherCart);
+
+        List<ProductOrder> orders = productOrderRepository.findAllBy(PageRequest.of(0, 20, Sort.by("id"))).collectList().block();
+
+        assertThat(orders).extracting(ProductOrder::getId).containsExactly(first.getId(), second.getId(), third.getId());
+        assertThat(orders).extracting(ProductOrder::getProduct).extracting(Product::getId).containsOnly(product.getId());
+        assertThat(orders).extracting(ProductOrder::getCart).extracting(ShoppingCart::getId).containsExactly(
+            cart.getId(),
+            cart.getId(),
+            otherCart.getId()
+        );
+        assertThat(orders.get(0).getCart().getPlacedDate()).isEqualTo(cart.getPlacedDate());
+        // A product or a cart shared by several orders is loaded once
+        assertThat(orders.get(1).getProduct()).isSameAs(orders.get(0).getProduct());
+        assertThat(orders.get(2).getProduct()).isSameAs(orders.get(0).getProduct());
+        assertThat(orders.get(1).getCart()).isSameAs(orders.get(0).getCart());
+    }
+
+    @Test
+    void orderOutsideOfThePartitionOfItsCartIsRejected() {
+        // The placed date of the cart is part of the foreign key: an order is always in the partition of its cart
+        ProductOrder order = order(cart);
+        order.setCartPlacedDate(cart.getPlacedDate().plus(31, ChronoUnit.DAYS));
+
+        assertThatThrownBy(() -> em.insert(order).block()).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private ProductOrder order(ShoppingCart shoppingCart) {
+        return new ProductOrder().quantity(1).totalPrice(BigDecimal.ONE).product(product).cart(shoppingCart);
+    }
+
+    private ProductOrder insert(ShoppingCart shoppingCart) {
+        return em.insert(order(shoppingCart)).block();
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import org.iqkv.boutique.IntegrationTest;
 import org.iqkv.boutique.domain.CustomerDetails;
+import org.iqkv.boutique.domain.Product;
+import org.iqkv.boutique.domain.ProductOrder;
 import org.iqkv.boutique.domain.ShoppingCart;
 import org.iqkv.boutique.domain.enumeration.OrderStatus;
 import org.iqkv.boutique.domain.enumeration.PaymentMethod;
@@ -358,6 +360,83 @@ class ShoppingCartResourceIT {
             .value(is(DEFAULT_PAYMENT_REFERENCE));
     }
 
+    @Test
+    void getShoppingCartDetail() {
+        // Initialize the database
+        insertedShoppingCart = shoppingCartRepository.save(shoppingCart).block();
+        Product product = em.insert(ProductResourceIT.createEntity(em)).block();
+        ProductOrder productOrder = new ProductOrder().quantity(2).totalPrice(BigDecimal.TEN);
+        productOrder.setProduct(product);
+        productOrder.setCart(insertedShoppingCart);
+        productOrder = em.insert(productOrder).block();
+
+        try {
+            // Get the shoppingCart detail
+            webTestClient
+                .get()
+                .uri(ENTITY_API_URL_ID + "/detail", shoppingCart.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.id")
+                .value(is(shoppingCart.getId().intValue()))
+                .jsonPath("$.placedDate")
+                .value(is(DEFAULT_PLACED_DATE.toString()))
+                .jsonPath("$.status")
+                .value(is(DEFAULT_STATUS.toString()))
+                .jsonPath("$.lines.length()")
+                .value(is(1))
+                .jsonPath("$.lines[0].id")
+                .value(is(productOrder.getId().intValue()))
+                .jsonPath("$.lines[0].quantity")
+                .value(is(2))
+                .jsonPath("$.lines[0].product.id")
+                .value(is(product.getId().intValue()))
+                .jsonPath("$.lines[0].product.name")
+                .value(is(product.getName()))
+                .jsonPath("$.lines[0].product.image")
+                .doesNotExist();
+        } finally {
+            em.deleteAll(ProductOrder.class).block();
+        }
+    }
+
+    @Test
+    void getShoppingCartDetailRendersPlacedDateAsInstant() {
+        for (String placedDate : List.of("2026-10-19T10:00:00Z", "2026-10-19T10:00:00.100Z", "2026-10-19T10:00:00.000120Z")) {
+            ShoppingCart cart = shoppingCartRepository.save(createEntity(em).placedDate(Instant.parse(placedDate))).block();
+            try {
+                webTestClient
+                    .get()
+                    .uri(ENTITY_API_URL_ID + "/detail", cart.getId())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody()
+                    .jsonPath("$.placedDate")
+                    .value(is(placedDate));
+            } finally {
+                shoppingCartRepository.delete(cart).block();
+            }
+        }
+    }
+
+    @Test
+    void getNonExistingShoppingCartDetail() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/detail", Long.MAX_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
     @Test
     void getNonExistingShoppingCart() {
         // Get the shoppingCart
@@ -0,0 +1,211 @@
+package org.iqkv.boutique.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import org.iqkv.boutique.IntegrationTest;
+import org.iqkv.boutique.domain.Product;
+import org.iqkv.boutique.domain.StockReservation;
+import org.iqkv.boutique.repository.EntityManager;
+import org.iqkv.boutique.repository.StockReservationRepository;
+import org.iqkv.boutique.security.AuthoritiesConstants;
+import org.iqkv.boutique.service.InsufficientStockException;
+import org.iqkv.boutique.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link StockReservationResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_ENTITY_TIMEOUT)
+@WithMockUser
+class StockReservationResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/stock-reservations";
+    private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Product product;
+
+    public static void deleteEntities(EntityManager em) {
+        try {
+            em.deleteAll(StockReservation.class).block();
+        } catch (Exception e) {
+            // It can fail, if other entities are still referring this - it will be removed later.
+        }
+        ProductResourceIT.deleteEntities(em);
+    }
+
+    @BeforeEach
+    public void setupCsrf() {
+        webTestClient = webTestClient.mutateWith(csrf());
+    }
+
+    @BeforeEach
+    public void initTest() {
+        product = em.insert(ProductResourceIT.createEntity(em)).block();
+        inventoryService.addStock(product.getId(), 10).block();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        deleteEntities(em);
+    }
+
+    @Test
+    void reserveTakesItemsFromStock() throws Exception {
+        var returnedReservation = webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(om.writeValueAsBytes(new StockReservation().productId(product.getId()).quantity(3)))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(StockReservation.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(returnedReservation.getExpiresAt()).isAfter(Instant.now());
+        assertThat(returnedReservation.getReservedBy()).isEqualTo("user");
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(7);
+    }
+
+    @Test
+    void reserveRequiresQuantity() throws Exception {
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(om.writeValueAsBytes(new StockReservation().productId(product.getId())))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(10);
+    }
+
+    @Test
+    void reserveFailsWhenStockIsInsufficient() throws Exception {
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(om.writeValueAsBytes(new StockReservation().productId(product.getId()).quantity(11)))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(10);
+    }
+
+    @Test
+    void releaseGivesItemsBack() {
+        StockReservation reservation = inventoryService.reserve(product.getId(), 4).block();
+
+        webTestClient.delete().uri(ENTITY_API_URL_ID, reservation.getId()).exchange().expectStatus().isNoContent();
+        webTestClient.delete().uri(ENTITY_API_URL_ID, reservation.getId()).exchange().expectStatus().isNotFound();
+
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(10);
+    }
+
+    @Test
+    void releaseOfAnotherUserIsNotFound() {
+        StockReservation reservation = inventoryService.reserve(product.getId(), 4).block();
+        stockReservationRepository.save(reservation.reservedBy("other")).block();
+
+        webTestClient.delete().uri(ENTITY_API_URL_ID, reservation.getId()).exchange().expectStatus().isNotFound();
+        webTestClient.post().uri(ENTITY_API_URL_ID + "/confirm", reservation.getId()).exchange().expectStatus().isNotFound();
+
+        assertThat(stockReservationRepository.findById(reservation.getId()).blockOptional()).isPresent();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(6);
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void adminReleasesReservationOfAnotherUser() {
+        StockReservation reservation = inventoryService.reserve(product.getId(), 4).block();
+        stockReservationRepository.save(reservation.reservedBy("other")).block();
+
+        webTestClient.delete().uri(ENTITY_API_URL_ID, reservation.getId()).exchange().expectStatus().isNoContent();
+
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(10);
+    }
+
+    @Test
+    void confirmKeepsItemsOutOfStock() {
+        StockReservation reservation = inventoryService.reserve(product.getId(), 4).block();
+
+        webTestClient.post().uri(ENTITY_API_URL_ID + "/confirm", reservation.getId()).exchange().expectStatus().isOk();
+
+        assertThat(stockReservationRepository.findById(reservation.getId()).blockOptional()).isEmpty();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(6);
+    }
+
+    @Test
+    void reserveTakesItemsFromStripes() {
+        assertThat(inventoryService.restripe(product.getId(), 4).block()).isEqualTo(10);
+
+        StockReservation reservation = inventoryService.reserve(product.getId(), 2).block();
+        assertThat(reservation.getStripe()).isNotNull();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(8);
+
+        inventoryService.release(reservation.getId()).block();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(10);
+
+        assertThat(inventoryService.restripe(product.getId(), 1).block()).isEqualTo(10);
+        assertThat(inventoryService.reserve(product.getId(), 10).block().getStripe()).isNull();
+    }
+
+    @Test
+    void reserveTakesItemsAcrossCounters() {
+        assertThat(inventoryService.restripe(product.getId(), 4).block()).isEqualTo(10);
+        inventoryService.addStock(product.getId(), 1).block();
+
+        // No single counter holds 9 items: the product row has 1, the stripes 3, 3, 2 and 2
+        StockReservation reservation = inventoryService.reserve(product.getId(), 9).block();
+        assertThat(reservation.getStripe()).isNull();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(2);
+
+        inventoryService.release(reservation.getId()).block();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(11);
+
+        assertThatThrownBy(() -> inventoryService.reserve(product.getId(), 12).block()).isInstanceOf(InsufficientStockException.class);
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(11);
+    }
+
+    @Test
+    void expiredReservationsAreReleased() {
+        StockReservation reservation = inventoryService.reserve(product.getId(), 5).block();
+        stockReservationRepository.save(reservation.expiresAt(Instant.now().minusSeconds(1))).block();
+
+        inventoryService.releaseExpiredReservations().block();
+
+        assertThat(stockReservationRepository.findById(reservation.getId()).blockOptional()).isEmpty();
+        assertThat(inventoryService.findAvailableStock(product.getId()).block()).isEqualTo(10);
+    }
+}
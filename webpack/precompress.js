@@ -0,0 +1,47 @@
+const zlib = require('zlib');
+const { Compilation, sources } = require('webpack');
+
+const PLUGIN_NAME = 'PrecompressPlugin';
+
+/**
+ * Emits `.br` and `.gz` siblings of the text assets, so that the server sends them as they are
+ * instead of compressing them on each request.
+ */
+class PrecompressPlugin {
+  constructor({ test = /\.(js|css|html|json|svg|txt)$/, threshold = 1024 } = {}) {
+    this.test = test;
+    this.threshold = threshold;
+  }
+
+  apply(compiler) {
+    compiler.hooks.thisCompilation.tap(PLUGIN_NAME, compilation => {
+      compilation.hooks.processAssets.tap({ name: PLUGIN_NAME, stage: Compilation.PROCESS_ASSETS_STAGE_OPTIMIZE_TRANSFER }, assets => {
+        Object.keys(assets)
+          .filter(name => this.test.test(name))
+          .forEach(name => {
+            const asset = compilation.getAsset(name);
+            const content = asset.source.buffer();
+            if (content.length < this.threshold) {
+              return;
+            }
+            const info = { compressed: true, immutable: asset.info.immutable };
+            compilation.emitAsset(`${name}.gz`, new sources.RawSource(zlib.gzipSync(content, { level: 9 })), info);
+            compilation.emitAsset(
+              `${name}.br`,
+              new sources.RawSource(
+                zlib.brotliCompressSync(content, {
+                  params: {
+                    [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+                    [zlib.constants.BROTLI_PARAM_SIZE_HINT]: content.length,
+                  },
+                }),
+              ),
+              info,
+            );
+          });
+      });
+    });
+  }
+}
+
+module.exports = PrecompressPlugin;